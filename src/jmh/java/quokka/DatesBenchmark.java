@@ -0,0 +1,38 @@
+package quokka;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import quokka.util.Dates;
+
+/** Date parsing per input format; the list size does not matter here. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatesBenchmark {
+
+    @Param({"2025-09-10", "10/9/2025", "Sep 10 2025"})
+    public String input;
+
+    @Benchmark
+    public LocalDate parseStrictDate() {
+        return Dates.parseStrictDate(input);
+    }
+
+    @Benchmark
+    public LocalDate parseFlexibleDate() {
+        return Dates.parseFlexibleDate(input);
+    }
+}
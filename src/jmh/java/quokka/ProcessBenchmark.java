@@ -0,0 +1,103 @@
+package quokka;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end {@link Quokka#process} on a pre-filled list: tokenizing, validation,
+ * the index lookups and reply rendering. Mutations use the journal with ASYNC
+ * durability so the disk stays off the measured path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Path dir;
+    private Quokka quokka;
+    private String duplicateDeadline;
+    private String duplicateEvent;
+    private String markCommand;
+    private String unmarkCommand;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DukeException {
+        dir = Files.createTempDirectory("quokka-jmh");
+        Path file = dir.resolve("tasks.txt");
+        List<Task> tasks = TaskGenerator.tasks(size, 42);
+        Storage.save(file, tasks);
+        quokka = new Quokka(file.toString(),
+            StorageOptions.defaults().withJournal(true).withDurability(Durability.ASYNC));
+        duplicateDeadline = firstCommand(tasks, Deadline.class);
+        duplicateEvent = firstCommand(tasks, Event.class);
+        markCommand = "mark " + (size / 2);
+        unmarkCommand = "unmark " + (size / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        quokka.close();
+        Storage.awaitCompaction();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static String firstCommand(List<Task> tasks, Class<? extends Task> type) {
+        for (Task t : tasks) {
+            if (type.isInstance(t)) {
+                return TaskGenerator.command(t);
+            }
+        }
+        throw new IllegalStateException("no " + type.getSimpleName() + " generated");
+    }
+
+    /** Parse, date validation and duplicate check; rejected, so the list stays the same. */
+    @Benchmark
+    public Reply deadlineDuplicate() {
+        return quokka.process(duplicateDeadline);
+    }
+
+    @Benchmark
+    public Reply eventDuplicate() {
+        return quokka.process(duplicateEvent);
+    }
+
+    /** A mark and an unmark of the same task, each recorded in the journal. */
+    @Benchmark
+    public Reply markUnmark() {
+        quokka.process(markCommand);
+        return quokka.process(unmarkCommand);
+    }
+
+    @Benchmark
+    public Reply findRare() {
+        return quokka.process("find groceries " + (size / 3));
+    }
+}
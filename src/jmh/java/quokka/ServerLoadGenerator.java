@@ -0,0 +1,133 @@
+package quokka;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for {@link QuokkaServer}: reports commands per second and latency
+ * percentiles at 1, 16 and 256 concurrent connections (or the counts given).
+ * <p>
+ * Usage: {@code ServerLoadGenerator [--port N] [--seconds S] [--connections 1,16,256]}.
+ * Each connection loops over a mix of an add, a paged list, a limited find and a date
+ * query, waiting for each reply. The adds stay in the list, so point the server at a
+ * scratch data file.
+ */
+public class ServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int port = QuokkaServer.DEFAULT_PORT;
+        int seconds = 10;
+        String connections = "1,16,256";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--seconds")) {
+                seconds = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--connections")) {
+                connections = args[i + 1];
+            }
+        }
+        System.out.printf("%11s %12s %10s %10s %10s%n", "connections", "commands/s", "p50", "p99", "max");
+        for (String c : connections.split(",")) {
+            run(port, Integer.parseInt(c.trim()), seconds);
+        }
+    }
+
+    private static void run(int port, int connections, int seconds) throws Exception {
+        Histogram latency = new Histogram();
+        LongAdder completed = new LongAdder();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(connections);
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int client = c;
+            Thread t = new Thread(() -> {
+                try {
+                    drive(port, client, latency, completed, measuring, stop);
+                } catch (IOException e) {
+                    System.err.println("connection " + client + ": " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + c);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        Thread.sleep(Math.min(2_000, seconds * 200L)); // warm-up, not counted
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1_000L);
+        measuring.set(false);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        stop.set(true);
+        done.await();
+
+        Histogram.Snapshot s = latency.snapshot();
+        System.out.printf("%11d %12.0f %8.0fus %8.0fus %8.0fus%n",
+            connections, completed.sum() / elapsed, s.p50 / 1e3, s.p99 / 1e3, s.max / 1e3);
+    }
+
+    private static void drive(int port, int client, Histogram latency, LongAdder completed,
+            AtomicBoolean measuring, AtomicBoolean stop) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            for (long i = 0; !stop.get(); i++) {
+                String tag = "lg" + client + "x" + i;
+                String cmd;
+                switch ((int) (i % 4)) {
+                    case 0:
+                        cmd = "todo load " + tag;
+                        break;
+                    case 1:
+                        cmd = "list 1 10";
+                        break;
+                    case 2:
+                        cmd = "find " + tag + " --limit 1";
+                        break;
+                    default:
+                        cmd = "due 2025-01-01";
+                        break;
+                }
+                long t0 = System.nanoTime();
+                out.write(cmd);
+                out.write('\n');
+                out.flush();
+                readReply(in);
+                if (measuring.get()) {
+                    latency.record(System.nanoTime() - t0);
+                    completed.increment();
+                }
+            }
+            out.write("bye\n");
+            out.flush();
+            readReply(in);
+        }
+    }
+
+    /** Reads one framed reply: a status line with a line count, then that many lines. */
+    private static void readReply(BufferedReader in) throws IOException {
+        String status = in.readLine();
+        if (status == null) {
+            throw new IOException("server closed the connection");
+        }
+        int lines = Integer.parseInt(status.substring(status.indexOf(' ') + 1));
+        for (int i = 0; i < lines; i++) {
+            in.readLine();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package quokka;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Full snapshot writes and startup loads (text and binary mirror) against list size. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Path dir;
+    private Path textFile;
+    private Path binaryFile;
+    private Path saveFile;
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DukeException {
+        dir = Files.createTempDirectory("quokka-jmh");
+        tasks = TaskGenerator.tasks(size, 42);
+        textFile = dir.resolve("text.txt");
+        binaryFile = dir.resolve("binary.txt");
+        saveFile = dir.resolve("save.txt");
+        Storage.save(textFile, tasks);
+        Storage.save(binaryFile, tasks, StorageOptions.defaults().withBinarySnapshot(true));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() throws DukeException {
+        Storage.save(saveFile, tasks);
+    }
+
+    @Benchmark
+    public List<Task> loadText() throws DukeException {
+        List<Task> out = new ArrayList<>();
+        Storage.load(textFile, out);
+        return out;
+    }
+
+    @Benchmark
+    public List<Task> loadBinary() throws DukeException {
+        List<Task> out = new ArrayList<>();
+        Storage.load(binaryFile, out);
+        return out;
+    }
+}
@@ -0,0 +1,68 @@
+package quokka;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measures retained heap per task for the task stores and for whole {@link TaskList}s,
+ * object-backed ({@link TaskVector}) against columnar ({@link TaskColumns}).
+ * <p>
+ * Usage: {@code TaskFootprint [--tasks N]}. Each structure is filled with the
+ * {@link TaskGenerator} mix (unique descriptions, so the arena cannot deduplicate) and
+ * measured as the difference in used heap after full GCs; run with a heap large enough
+ * to hold one structure at a time.
+ */
+public class TaskFootprint {
+
+    public static void main(String[] args) {
+        int n = 1_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--tasks")) {
+                n = Integer.parseInt(args[i + 1]);
+            }
+        }
+        int tasks = n;
+        System.out.printf("%-22s %14s %10s%n", "structure", "bytes", "per task");
+        report("TaskVector", tasks, () -> fill(TaskVector.empty(), tasks));
+        report("TaskColumns", tasks, () -> fill(TaskColumns.empty(), tasks));
+        report("TaskList", tasks, () -> fill(new TaskList(), tasks));
+        report("TaskList.columnar()", tasks, () -> fill(TaskList.columnar(), tasks));
+    }
+
+    private static TaskStore fill(TaskStore store, int n) {
+        Random r = new Random(42);
+        for (int i = 0; i < n; i++) {
+            Task t = TaskGenerator.task(r, i);
+            t.setId(i + 1);
+            store = store.append(t);
+        }
+        return store;
+    }
+
+    private static TaskList fill(TaskList list, int n) {
+        Random r = new Random(42);
+        for (int i = 0; i < n; i++) {
+            list.add(TaskGenerator.task(r, i));
+        }
+        return list;
+    }
+
+    private static void report(String name, int n, Supplier<Object> build) {
+        long before = usedAfterGc();
+        Object retained = build.get();
+        long bytes = usedAfterGc() - before;
+        System.out.printf("%-22s %,14d %10.1f%n", name, bytes, (double) bytes / n);
+        Reference.reachabilityFence(retained);
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
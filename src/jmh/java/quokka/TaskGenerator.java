@@ -0,0 +1,62 @@
+package quokka;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic task lists for the benchmarks.
+ * <p>
+ * The mix is roughly what a real list looks like: half todos, 30% deadlines and
+ * 20% events, a quarter of them done, with short descriptions drawn from a small
+ * vocabulary so that keywords match a realistic fraction of tasks.
+ */
+final class TaskGenerator {
+    static final String[] VERBS = {
+        "read", "write", "review", "submit", "buy", "call", "fix", "plan", "email", "prepare",
+    };
+    static final String[] NOUNS = {
+        "report", "book", "slides", "groceries", "mom", "bug", "trip", "invoice", "lecture notes", "tutorial",
+    };
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    private TaskGenerator() {}
+
+    /** Returns {@code n} distinct tasks; the same seed always gives the same list. */
+    static List<Task> tasks(int n, long seed) {
+        Random r = new Random(seed);
+        List<Task> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(task(r, i));
+        }
+        return out;
+    }
+
+    /** Task number {@code i}; the number keeps descriptions unique. */
+    static Task task(Random r, int i) {
+        String desc = VERBS[r.nextInt(VERBS.length)] + " " + NOUNS[r.nextInt(NOUNS.length)] + " " + i;
+        boolean done = r.nextInt(4) == 0;
+        int kind = r.nextInt(10);
+        if (kind < 5) {
+            return new Todo(desc, done);
+        }
+        LocalDate from = BASE.plusDays(r.nextInt(730));
+        if (kind < 8) {
+            return new Deadline(desc, from, done);
+        }
+        return new Event(desc, from, from.plusDays(1 + r.nextInt(5)), done);
+    }
+
+    /** The command that would have created {@code t}. */
+    static String command(Task t) {
+        if (t instanceof Deadline) {
+            return "deadline " + t.getDescription() + " /by " + ((Deadline) t).getByDate();
+        }
+        if (t instanceof Event) {
+            Event e = (Event) t;
+            return "event " + t.getDescription() + " /from " + e.getFromDate() + " /to " + e.getToDate();
+        }
+        return "todo " + t.getDescription();
+    }
+}
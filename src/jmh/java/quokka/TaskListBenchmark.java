@@ -0,0 +1,106 @@
+package quokka;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link TaskList#find} and {@link TaskList#containsDuplicate} against list size. The
+ * {@code duplicate*Scan} benchmarks keep the linear scan the identity index replaced as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private TaskList taskList;
+    private Task present;
+    private Task absent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Task> tasks = TaskGenerator.tasks(size, 42);
+        taskList = new TaskList();
+        taskList.addAll(tasks);
+        present = tasks.get(size / 2);
+        absent = new Todo("read report " + size);
+    }
+
+    /** Keyword that occurs in about a tenth of the tasks. */
+    @Benchmark
+    public List<Task> findCommon() {
+        return taskList.find("invoice");
+    }
+
+    /** Keyword that matches a single task. */
+    @Benchmark
+    public List<Task> findRare() {
+        return taskList.find("groceries " + (size / 3));
+    }
+
+    /** Two-character keywords are below the trigram length and fall back to a scan. */
+    @Benchmark
+    public List<Task> findShort() {
+        return taskList.find("mo");
+    }
+
+    @Benchmark
+    public boolean duplicateHit() {
+        return taskList.containsDuplicate(present);
+    }
+
+    @Benchmark
+    public boolean duplicateMiss() {
+        return taskList.containsDuplicate(absent);
+    }
+
+    @Benchmark
+    public boolean duplicateHitScan() {
+        return scanContains(taskList.view(), present);
+    }
+
+    @Benchmark
+    public boolean duplicateMissScan() {
+        return scanContains(taskList.view(), absent);
+    }
+
+    /** The pre-index implementation: rebuild every key from the data string and compare. */
+    private static boolean scanContains(List<Task> tasks, Task candidate) {
+        String key = legacyKey(candidate);
+        for (Task t : tasks) {
+            if (legacyKey(t).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String legacyKey(Task t) {
+        String[] p = t.toDataString().split("\\s*\\|\\s*");
+        if (p.length < 3) {
+            return t.toDataString().trim();
+        }
+        StringBuilder sb = new StringBuilder(p[0]).append('|').append(p[2].trim().toLowerCase());
+        for (int i = 3; i < p.length; i++) {
+            sb.append('|').append(p[i].trim());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package quokka;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary mirror of tasks.txt ({@code <file>.bin}) that loads without date parsing.
+ * <p>
+ * Layout (big-endian): magic {@code "QKBN"}, version, size and mtime of the text
+ * file it mirrors, task count, then per task: id, type label byte, done byte,
+ * length-prefixed UTF-8 description and 0-2 epoch-day ints. A CRC32 of all
+ * preceding bytes closes the file. The mirror is only trusted while the text
+ * file still has the recorded size and mtime, so hand edits fall back to text.
+ */
+final class BinarySnapshot {
+    private static final int MAGIC = 0x514B424E; // "QKBN"
+    private static final int VERSION = 2;
+    /** magic + version + text size + text mtime + count. */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+
+    private BinarySnapshot() {}
+
+    /** Location of the binary mirror for a text data file. */
+    static Path pathFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".bin");
+    }
+
+    /**
+     * Write the mirror of {@code file}, which must already contain {@code tasks}.
+     * Written to a temp file and moved into place like the text snapshot.
+     */
+    static void write(Path file, List<Task> tasks) throws IOException {
+        Path bin = pathFor(file);
+        Path dir = bin.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, "quokka-", ".bin.tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream raw = Files.newOutputStream(tmp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 64 * 1024), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(file));
+            out.writeLong(Files.getLastModifiedTime(file).toMillis());
+            out.writeInt(tasks.size());
+            for (Task t : tasks) {
+                out.writeInt(t.getId());
+                out.writeByte(t.getType().getLabel().charAt(0));
+                out.writeByte(t.isDone() ? 1 : 0);
+                byte[] desc = t.getDescription().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(desc.length);
+                out.write(desc);
+                if (t instanceof Deadline) {
+                    out.writeInt((int) ((Deadline) t).getByDate().toEpochDay());
+                } else if (t instanceof Event) {
+                    out.writeInt((int) ((Event) t).getFromDate().toEpochDay());
+                    out.writeInt((int) ((Event) t).getToDate().toEpochDay());
+                }
+            }
+            out.flush();
+            // Not covered by the checksum: written straight to the underlying stream.
+            DataOutputStream trailer = new DataOutputStream(raw);
+            trailer.writeInt((int) crc.getValue());
+            trailer.flush();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        try {
+            Files.move(tmp, bin, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, bin, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read the mirror of {@code file} if it exists, is intact and is current.
+     *
+     * @return the tasks, or null if the text file must be parsed instead
+     */
+    static List<Task> readIfCurrent(Path file) throws IOException {
+        Path bin = pathFor(file);
+        if (!Files.exists(bin) || !Files.exists(file)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(bin);
+        if (bytes.length < HEADER_BYTES + 4) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+            return null;
+        }
+        if (buf.getLong() != Files.size(file) || buf.getLong() != Files.getLastModifiedTime(file).toMillis()) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != buf.getInt(bytes.length - 4)) {
+            return null;
+        }
+        buf.limit(bytes.length - 4);
+        int count = buf.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<Task> out = new ArrayList<>(Math.min(count, buf.remaining() / 10));
+        try {
+            for (int i = 0; i < count; i++) {
+                int id = buf.getInt();
+                char type = (char) buf.get();
+                boolean done = buf.get() != 0;
+                int len = buf.getInt();
+                String desc = new String(bytes, buf.position(), len, StandardCharsets.UTF_8);
+                buf.position(buf.position() + len);
+                Task t;
+                switch (type) {
+                    case 'T':
+                        t = new Todo(desc, done);
+                        break;
+                    case 'D':
+                        t = new Deadline(desc, LocalDate.ofEpochDay(buf.getInt()), done);
+                        break;
+                    case 'E':
+                        LocalDate from = LocalDate.ofEpochDay(buf.getInt());
+                        t = new Event(desc, from, LocalDate.ofEpochDay(buf.getInt()), done);
+                        break;
+                    default:
+                        return null;
+                }
+                t.setId(id);
+                out.add(t);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+            return null;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,63 @@
+package quokka;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+/**
+ * Reusable row of the chat ListView. The ListView only creates enough cells to fill
+ * the viewport and calls {@link #updateItem} to rebind them while scrolling, so the
+ * bubble, avatar and row nodes are built once per cell instead of once per message.
+ */
+class ChatCell extends ListCell<ChatMessage> {
+    private final HBox row = new HBox(10);
+    private final Label bubble = new Label();
+    private final ImageView avatar = new ImageView();
+    private final Image botAvatar;
+    private final Image userAvatar;
+
+    ChatCell(Image botAvatar, Image userAvatar, ReadOnlyDoubleProperty laneWidth) {
+        this.botAvatar = botAvatar;
+        this.userAvatar = userAvatar;
+        bubble.setWrapText(true);
+        bubble.maxWidthProperty().bind(laneWidth.subtract(120));
+        avatar.setFitWidth(42);
+        avatar.setFitHeight(42);
+        avatar.setPreserveRatio(true);
+        avatar.getStyleClass().add("avatar");
+        row.getStyleClass().add("row");
+        getStyleClass().add("chat-cell");
+        // Let the ListView width, not the text, decide how wide the cell is.
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage m, boolean empty) {
+        super.updateItem(m, empty);
+        if (empty || m == null) {
+            setGraphic(null);
+            return;
+        }
+        bubble.setText(m.text);
+        bubble.getStyleClass().setAll("label", m.fromUser ? "user-chip" : "bot-bubble");
+        if (m.error) {
+            bubble.getStyleClass().add("error-bubble");
+        }
+        Image img = m.fromUser ? userAvatar : botAvatar;
+        avatar.setImage(img);
+        avatar.setScaleX(m.fromUser ? -1 : 1);
+        if (img == null) {
+            row.getChildren().setAll(bubble);
+        } else if (m.fromUser) {
+            row.getChildren().setAll(bubble, avatar);
+        } else {
+            row.getChildren().setAll(avatar, bubble);
+        }
+        row.setAlignment(m.fromUser ? Pos.TOP_RIGHT : Pos.TOP_LEFT);
+        setGraphic(row);
+    }
+}
@@ -0,0 +1,31 @@
+package quokka;
+
+/**
+ * One entry of the GUI transcript: who said it, what was said and whether it was an error.
+ */
+public final class ChatMessage {
+    public final String text;
+    public final boolean fromUser;
+    public final boolean error;
+
+    private ChatMessage(String text, boolean fromUser, boolean error) {
+        this.text = text;
+        this.fromUser = fromUser;
+        this.error = error;
+    }
+
+    /** A command typed by the user. */
+    public static ChatMessage user(String text) {
+        return new ChatMessage(text, true, false);
+    }
+
+    /** A reply from the bot; error replies are highlighted. */
+    public static ChatMessage bot(String text, boolean error) {
+        return new ChatMessage(text, false, error || text.startsWith("OOPS!!!"));
+    }
+
+    /** Line format used when the message is spilled to the transcript file. */
+    String toLogString() {
+        return (fromUser ? "> " : error ? "! " : "  ") + text.replace("\n", "\n  ");
+    }
+}
@@ -0,0 +1,52 @@
+package quokka;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link Quokka#process} on one background thread so callers (the JavaFX
+ * application thread in particular) never block on validation or disk writes.
+ * <p>
+ * There is a single writer thread, so commands are applied strictly in the order
+ * they were submitted and each future completes in that order too.
+ */
+public class CommandExecutor {
+    private final Quokka quokka;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quokka-commands");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CommandExecutor(Quokka quokka) {
+        this.quokka = quokka;
+    }
+
+    /**
+     * Queue a command. The future never completes exceptionally: unexpected
+     * failures are turned into error replies like {@link Quokka#process} does.
+     */
+    public CompletableFuture<Reply> submit(String command) {
+        return CompletableFuture.supplyAsync(() -> quokka.process(command), executor)
+            .exceptionally(e -> Reply.error("OOPS!!! " + e.getClass().getSimpleName() + ": " + e.getMessage()));
+    }
+
+    /** Snapshot of the tasks as of all commands submitted so far. */
+    public CompletableFuture<List<Task>> snapshotTasks() {
+        return CompletableFuture.supplyAsync(quokka::snapshotTasks, executor);
+    }
+
+    /** Let queued commands finish, then close the bot (flushing pending writes). */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        quokka.close();
+    }
+}
@@ -3,6 +3,7 @@ package quokka;
 import quokka.util.Dates;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /** A deadline task that is due on a single date. */
 public class Deadline extends Task {
@@ -20,16 +21,38 @@ public class Deadline extends Task {
         assert this.by != null : "Deadline date must parse";
     }
 
+    /** Creates a deadline from an already-parsed date (used when loading binary snapshots). */
+    public Deadline(String description, LocalDate by, boolean isDone) {
+        super(description, TaskType.DEADLINE, isDone);
+        assert by != null : "Deadline date must not be null";
+        this.by = by;
+    }
+
     /** Expose the due date for searches/filters. */
     public LocalDate getByDate() {
         return by;
     }
 
+    @Override
+    public List<LocalDate> getDates() {
+        return List.of(by);
+    }
+
+    @Override
+    public String identityKey() {
+        return super.identityKey() + "|" + by;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " (by: " + Dates.fmt(by) + ")";
     }
 
+    @Override
+    public Task withDone(boolean done) {
+        return new Deadline(description, by, done);
+    }
+
     @Override
     public String toDataString() {
         return TaskType.DEADLINE.getLabel() + " | " + (isDone ? "1" : "0")
@@ -0,0 +1,132 @@
+package quokka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only store of deduplicated UTF-8 descriptions for {@link TaskColumns}.
+ * <p>
+ * Each description is stored once as a varint length followed by its bytes and is referred
+ * to by its offset; adding an equal description again returns the existing offset. An
+ * open-addressing table of offsets (hashed by content) finds duplicates without keeping any
+ * {@code String} around.
+ * <p>
+ * Bytes are never moved or overwritten, so offsets handed to older {@link TaskColumns}
+ * versions stay valid while the single writer keeps appending. Growing publishes a copy of
+ * the array through a volatile field, so a reader sees either array with every description
+ * its version can refer to.
+ */
+final class DescriptionArena {
+    private volatile byte[] data = new byte[256];
+    private int used;
+    /** Offset + 1 of each distinct description, 0 for an empty slot; length is a power of two. */
+    private int[] table = new int[64];
+    private int distinct;
+
+    /** Returns the offset of {@code s}, appending it if no equal description is stored yet. */
+    int add(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        int slot = hash(bytes, 0, bytes.length) & mask;
+        while (table[slot] != 0) {
+            int off = table[slot] - 1;
+            if (equalsAt(off, bytes)) {
+                return off;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int off = used;
+        ensureCapacity(5 + bytes.length);
+        int pos = writeVarint(off, bytes.length);
+        System.arraycopy(bytes, 0, data, pos, bytes.length);
+        used = pos + bytes.length;
+        table[slot] = off + 1;
+        if (++distinct * 2 > table.length) {
+            rehash();
+        }
+        return off;
+    }
+
+    /** Decodes the description at {@code off}. */
+    String get(int off) {
+        byte[] d = data;
+        int len = lengthAt(d, off);
+        return new String(d, off + varintSize(len), len, StandardCharsets.UTF_8);
+    }
+
+    /** Bytes held: the used part of the data array plus the dedup table. */
+    long bytesUsed() {
+        return used + 4L * table.length;
+    }
+
+    private boolean equalsAt(int off, byte[] bytes) {
+        byte[] d = data;
+        int len = lengthAt(d, off);
+        int pos = off + varintSize(len);
+        return len == bytes.length && Arrays.equals(d, pos, pos + len, bytes, 0, len);
+    }
+
+    private static int lengthAt(byte[] d, int off) {
+        int len = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = d[off++];
+            len |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return len;
+    }
+
+    private static int varintSize(int value) {
+        int n = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            n++;
+        }
+        return n;
+    }
+
+    private int writeVarint(int pos, int value) {
+        byte[] d = data;
+        while ((value & ~0x7F) != 0) {
+            d[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        d[pos++] = (byte) value;
+        return pos;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (used + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, used + extra));
+        }
+    }
+
+    private void rehash() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        int mask = table.length - 1;
+        byte[] d = data;
+        for (int entry : old) {
+            if (entry == 0) {
+                continue;
+            }
+            int off = entry - 1;
+            int len = lengthAt(d, off);
+            int slot = hash(d, off + varintSize(len), len) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+    }
+
+    private static int hash(byte[] a, int from, int len) {
+        int h = 1;
+        for (int i = from; i < from + len; i++) {
+            h = 31 * h + a[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
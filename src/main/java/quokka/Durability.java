@@ -0,0 +1,13 @@
+package quokka;
+
+/**
+ * How eagerly mutations are written to disk.
+ */
+public enum Durability {
+    /** Write on the caller's thread before the command returns (the classic behaviour). */
+    SYNC,
+    /** Coalesce every mutation inside a short window into one write followed by an fsync. */
+    GROUP,
+    /** Hand writes to a background flusher that saves from a snapshot of the task list. */
+    ASYNC
+}
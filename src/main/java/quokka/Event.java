@@ -3,6 +3,7 @@
 package quokka;
 
 import java.time.LocalDate;
+import java.util.List;
 import quokka.util.Dates;
 
 public class Event extends Task {
@@ -28,6 +29,34 @@ public class Event extends Task {
         assert !this.from.isAfter(this.to) : "Event: start date must be <= end date";
     }
 
+    /** Creates an event from already-parsed dates (used when loading binary snapshots). */
+    public Event(String description, LocalDate from, LocalDate to, boolean isDone) {
+        super(description, TaskType.EVENT, isDone);
+        assert from != null && to != null : "Event dates must not be null";
+        assert !from.isAfter(to) : "Event: start date must be <= end date";
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Expose the start date for searches/filters. */
+    public LocalDate getFromDate() {
+        return from;
+    }
+
+    /** Expose the end date for searches/filters. */
+    public LocalDate getToDate() {
+        return to;
+    }
+
+    @Override
+    public List<LocalDate> getDates() {
+        return from.equals(to) ? List.of(from) : List.of(from, to);
+    }
+
+    @Override
+    public String identityKey() {
+        return super.identityKey() + "|" + from + "|" + to;
+    }
 
     @Override
     public String toString() {
@@ -35,6 +64,11 @@ public class Event extends Task {
     }
 
 
+    @Override
+    public Task withDone(boolean done) {
+        return new Event(description, from, to, done);
+    }
+
     @Override
     public String toDataString() {
         return TaskType.EVENT.getLabel() + " | " + (isDone ? "1" : "0")
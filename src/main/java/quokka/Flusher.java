@@ -0,0 +1,248 @@
+package quokka;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes mutations of one data file according to a {@link Durability} mode.
+ * <p>
+ * In {@code SYNC} mode every mutation is written before {@link #persist} returns.
+ * In {@code GROUP} and {@code ASYNC} mode mutations only mark the file dirty; a
+ * single background thread later takes a snapshot of the task list under
+ * {@code lock} (the same monitor that guards mutations) and writes everything
+ * that accumulated in one go. Background failures are reported by the next call.
+ */
+public class Flusher {
+    private final Path file;
+    private final StorageOptions options;
+    private final Object lock;
+    private final Supplier<List<Task>> tasks;
+    private final ScheduledExecutorService executor;
+
+    /* Guarded by lock. */
+    private List<String> pendingRecords = new ArrayList<>();
+    private long pendingBytes;
+    private boolean dirty;
+    /** True while the flusher thread writes records it took out of {@code pendingRecords}. */
+    private boolean writing;
+    /** True if the next write must be a full snapshot that drops the journal (see {@link #rewrite}). */
+    private boolean rewrite;
+    private Future<?> scheduled;
+    private DukeException failure;
+
+    /**
+     * @param file data file to write
+     * @param options journal/durability settings
+     * @param lock monitor held by callers while they mutate the task list
+     * @param tasks live task list, only read while holding {@code lock}
+     */
+    public Flusher(Path file, StorageOptions options, Object lock, Supplier<List<Task>> tasks) {
+        this.file = file;
+        this.options = options;
+        this.lock = lock;
+        this.tasks = tasks;
+        if (options.durability == Durability.SYNC) {
+            this.executor = null;
+        } else {
+            ScheduledThreadPoolExecutor ex = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "quokka-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            ex.setRemoveOnCancelPolicy(true);
+            this.executor = ex;
+        }
+    }
+
+    /**
+     * Record a mutation that has already been applied to the task list.
+     * Must be called while holding {@code lock}.
+     */
+    public void persist(String journalRecord) throws DukeException {
+        persist(List.of(journalRecord));
+    }
+
+    /**
+     * Record one mutation described by several journal records, which are written together.
+     * Must be called while holding {@code lock}.
+     */
+    public void persist(List<String> journalRecords) throws DukeException {
+        if (options.durability == Durability.SYNC) {
+            if (options.journaled) {
+                Storage.appendJournal(file, journalRecords, tasks.get(), options);
+            } else {
+                Storage.save(file, tasks.get(), options);
+            }
+            return;
+        }
+        if (options.journaled) {
+            for (String r : journalRecords) {
+                pendingRecords.add(r);
+                pendingBytes += r.length() + 1;
+            }
+        }
+        dirty = true;
+        if (scheduled == null) {
+            long delay = options.durability == Durability.GROUP ? options.groupWindowMs : 0;
+            scheduled = executor.schedule(this::flushPending, delay, TimeUnit.MILLISECONDS);
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Replace the data file and any journal with a snapshot of the current list, e.g. after
+     * the file was edited behind this flusher's back so that positional journal records no
+     * longer fit it. Records not yet written are dropped; the snapshot holds their changes.
+     * Must be called while holding {@code lock}.
+     */
+    public void rewrite() throws DukeException {
+        if (options.durability == Durability.SYNC) {
+            Storage.save(file, tasks.get(), options);
+            return;
+        }
+        pendingRecords = new ArrayList<>();
+        pendingBytes = 0;
+        rewrite = true;
+        dirty = true;
+        if (scheduled == null) {
+            scheduled = executor.schedule(this::flushPending, 0, TimeUnit.MILLISECONDS);
+        }
+        rethrowFailure();
+    }
+
+    /** Returns true if mutations are waiting to be written. */
+    public boolean hasPending() {
+        synchronized (lock) {
+            return dirty;
+        }
+    }
+
+    /**
+     * Returns true if everything recorded so far is on disk: nothing pending, scheduled or
+     * being written. Only then may the data file be reloaded by someone else.
+     */
+    public boolean isIdle() {
+        synchronized (lock) {
+            return !dirty && !writing && scheduled == null;
+        }
+    }
+
+    /**
+     * Stops the background thread of an idle flusher (see {@link #isIdle}). Unlike
+     * {@link #close} it never waits for a write, so it may be called while holding {@code lock}.
+     */
+    public void shutdownIdle() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Write anything still pending and wait until it is on disk.
+     * Must not be called while holding {@code lock}; the flusher thread needs it to take its snapshot.
+     */
+    public void flush() throws DukeException {
+        if (executor == null) {
+            return;
+        }
+        Future<?> f;
+        synchronized (lock) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            f = executor.submit(this::flushPending);
+            scheduled = f;
+        }
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new DukeException("Unable to save data: " + e.getCause().getMessage());
+        }
+        synchronized (lock) {
+            rethrowFailure();
+        }
+    }
+
+    /** Flush and stop the background thread. */
+    public void close() throws DukeException {
+        try {
+            flush();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /** Runs on the flusher thread: snapshot under the lock, write outside it. */
+    private void flushPending() {
+        List<String> records;
+        List<Task> snapshot;
+        boolean full;
+        synchronized (lock) {
+            scheduled = null;
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            writing = true;
+            records = pendingRecords;
+            pendingRecords = new ArrayList<>();
+            full = rewrite;
+            rewrite = false;
+            boolean compact = options.journaled
+                && Storage.journalSize(file) + pendingBytes >= Storage.JOURNAL_COMPACT_BYTES;
+            pendingBytes = 0;
+            snapshot = (!options.journaled || compact || full) ? TaskList.immutableCopy(tasks.get()) : null;
+        }
+        try {
+            if (options.journaled && !full) {
+                Storage.appendJournal(file, records, options.fsync());
+            } else {
+                Storage.save(file, snapshot, options);
+            }
+        } catch (DukeException e) {
+            synchronized (lock) {
+                // Keep the unwritten records so the next flush retries them in order.
+                records.addAll(pendingRecords);
+                pendingRecords = records;
+                rewrite |= full;
+                dirty = true;
+                writing = false;
+                failure = e;
+            }
+            return;
+        }
+        DukeException compactionFailure = null;
+        if (options.journaled && snapshot != null && !full) {
+            try {
+                Storage.compactInBackground(file, snapshot, options);
+            } catch (DukeException e) {
+                compactionFailure = e;
+            }
+        }
+        synchronized (lock) {
+            writing = false;
+            if (compactionFailure != null) {
+                failure = compactionFailure;
+            }
+        }
+    }
+
+    private void rethrowFailure() throws DukeException {
+        if (failure != null) {
+            DukeException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+}
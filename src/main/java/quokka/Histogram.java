@@ -0,0 +1,106 @@
+package quokka;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values below 32 get their own bucket; above that every power of two is split
+ * into 16 linear sub-buckets, so any recorded value is reported within about 6%
+ * over the whole {@code long} range with 960 counters. {@link #record} only does
+ * array and atomic arithmetic, so it never allocates and may be called from any thread.
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int LINEAR = 2 * SUB;
+    private static final int BUCKETS = (63 - SUB_BITS) * SUB + SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Record one value; negative values count as 0. */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // retry until we either raised max or someone else raised it past v
+        }
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    /** Summary of the values recorded so far. Concurrent records may or may not be included. */
+    public Snapshot snapshot() {
+        long n = 0;
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(n, n == 0 ? 0 : sum.get() / (double) n,
+            percentile(copy, n, 0.50, maxValue), percentile(copy, n, 0.90, maxValue),
+            percentile(copy, n, 0.99, maxValue), maxValue);
+    }
+
+    static int bucketOf(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return shift * SUB + (int) (v >>> shift);
+    }
+
+    /** Largest value that falls into bucket {@code i}. */
+    static long highestInBucket(int i) {
+        if (i < LINEAR) {
+            return i;
+        }
+        int shift = i / SUB - 1;
+        long mantissa = i % SUB + SUB;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long n, double p, long maxValue) {
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /** Immutable summary of a histogram. */
+    public static final class Snapshot {
+        public final long count;
+        public final double mean;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        Snapshot(long count, double mean, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package quokka;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Undo/redo history of one task list. Changes are kept as compact edits instead of copies
+ * of the list: an insert or removal holds only the tasks involved and their positions, a
+ * mark only the ids whose state it changed. Applying an edit changes the list in one pass
+ * and returns its journal records, so undo and redo are written as incremental records like
+ * any other command. At most {@code depth} edits are kept; older ones are forgotten.
+ */
+final class History {
+
+    /** One undoable change. */
+    abstract static class Edit {
+        /** The command that made the change, as echoed by undo/redo. */
+        final String command;
+
+        Edit(String command) {
+            this.command = command;
+        }
+
+        /** Makes the change on {@code tasks} and returns the journal records describing it. */
+        abstract List<String> apply(TaskList tasks);
+
+        /** The edit that reverts this one. */
+        abstract Edit inverse();
+    }
+
+    /** Tasks that end up, in order, at the ascending positions {@code at}: an add, or an undone delete. */
+    static final class Insert extends Edit {
+        private final BitSet at;
+        private final List<Task> tasks;
+
+        Insert(String command, BitSet at, List<Task> tasks) {
+            super(command);
+            this.at = at;
+            this.tasks = tasks;
+        }
+
+        @Override
+        List<String> apply(TaskList list) {
+            list.insertAt(at, tasks);
+            List<String> records = new ArrayList<>(tasks.size());
+            int k = 0;
+            for (int i = at.nextSetBit(0); i >= 0; i = at.nextSetBit(i + 1)) {
+                records.add(Storage.insertRecord(i, tasks.get(k++)));
+            }
+            return records;
+        }
+
+        @Override
+        Edit inverse() {
+            return new Remove(command, at, tasks);
+        }
+    }
+
+    /** The tasks at the positions {@code at}, removed by a delete or by undoing an add. */
+    static final class Remove extends Edit {
+        private final BitSet at;
+        private final List<Task> tasks;
+
+        Remove(String command, BitSet at, List<Task> tasks) {
+            super(command);
+            this.at = at;
+            this.tasks = tasks;
+        }
+
+        @Override
+        List<String> apply(TaskList list) {
+            list.removeAt(at);
+            return List.of(Storage.indexRecord(Storage.REC_DELETE, at));
+        }
+
+        @Override
+        Edit inverse() {
+            return new Insert(command, at, tasks);
+        }
+    }
+
+    /** The tasks with the given ids, marked done or not done. */
+    static final class Mark extends Edit {
+        private final int[] ids;
+        private final boolean done;
+
+        Mark(String command, int[] ids, boolean done) {
+            super(command);
+            this.ids = ids;
+            this.done = done;
+        }
+
+        @Override
+        List<String> apply(TaskList list) {
+            BitSet at = new BitSet();
+            for (int id : ids) {
+                int idx0 = list.indexOfId(id);
+                if (idx0 >= 0) {
+                    at.set(idx0);
+                }
+            }
+            if (at.isEmpty()) {
+                return List.of();
+            }
+            list.setDone(at, done);
+            return List.of(Storage.indexRecord(done ? Storage.REC_MARK : Storage.REC_UNMARK, at));
+        }
+
+        @Override
+        Edit inverse() {
+            return new Mark(command, ids, !done);
+        }
+    }
+
+    private final Deque<Edit> undo = new ArrayDeque<>();
+    private final Deque<Edit> redo = new ArrayDeque<>();
+    private final int depth;
+
+    /** @param depth most edits to keep; 0 turns the history off */
+    History(int depth) {
+        this.depth = depth;
+    }
+
+    /** Remembers a change a command just made. Anything undone before can no longer be redone. */
+    void record(Edit e) {
+        redo.clear();
+        if (depth == 0) {
+            return;
+        }
+        undo.push(e);
+        if (undo.size() > depth) {
+            undo.removeLast();
+        }
+    }
+
+    /** The edit that reverts the latest change, to be applied by the caller, or null if there is none. */
+    Edit undo() {
+        Edit e = undo.poll();
+        if (e == null) {
+            return null;
+        }
+        redo.push(e);
+        return e.inverse();
+    }
+
+    /** The latest undone change, to be applied again by the caller, or null if there is none. */
+    Edit redo() {
+        Edit e = redo.poll();
+        if (e == null) {
+            return null;
+        }
+        undo.push(e);
+        return e;
+    }
+
+    /** Forgets every edit, e.g. after the list was changed in a way the edits' positions do not account for. */
+    void clear() {
+        undo.clear();
+        redo.clear();
+    }
+
+    /** Number of changes that can be undone. */
+    int undoable() {
+        return undo.size();
+    }
+}
@@ -0,0 +1,77 @@
+package quokka;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Growable, sorted set of task ids backed by an {@code int[]}.
+ * Used as a posting list by the {@link TaskList} indexes: new ids are handed out in
+ * increasing order, so adds are almost always appends. Id order is not always list order
+ * (a task inserted mid-list keeps a higher id), so readers sort matches by position.
+ * <p>
+ * Removal is lazy: the id stays in place (readers skip ids that are no longer in the list)
+ * and is only counted, and the dead ids are dropped in one pass once they make up half the
+ * list. Deleting every task of a long posting list is therefore linear, not quadratic.
+ */
+final class IdList {
+    private int[] ids = new int[4];
+    private int size;
+    private int dead;
+
+    /** Entries, including removed ids that have not been dropped yet. */
+    int size() {
+        return size;
+    }
+
+    /** Ids that have not been removed. */
+    int liveCount() {
+        return size - dead;
+    }
+
+    int get(int i) {
+        return ids[i];
+    }
+
+    /** Inserts {@code id} keeping the list sorted; duplicates are ignored. */
+    void add(int id) {
+        if (size == 0 || ids[size - 1] < id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+
+    /**
+     * Records that one id of the list was removed; {@code live} must already reject it.
+     * Call once per removed id.
+     */
+    void remove(IntPredicate live) {
+        if (++dead * 2 < size) {
+            return;
+        }
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (live.test(ids[i])) {
+                ids[n++] = ids[i];
+            }
+        }
+        size = n;
+        dead = 0;
+        if (ids.length > 4 && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package quokka;
+
+/**
+ * Map from task id to store slot with primitive keys and values, used by {@link TaskList}
+ * to find a task by its id in O(1) without boxing.
+ * <p>
+ * Open addressing with linear probing; ids are positive, so 0 marks an empty entry.
+ * Removal shifts later entries of the probe run back instead of leaving markers.
+ */
+final class IdSlotMap {
+    private int[] keys = new int[16];
+    private int[] values = new int[16];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /** Slot of {@code id}, or -1 if absent. */
+    int get(int id) {
+        int mask = keys.length - 1;
+        for (int i = mix(id) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Maps {@code id} (which must be positive) to {@code slot}, replacing any previous slot. */
+    void put(int id, int slot) {
+        int mask = keys.length - 1;
+        int i = mix(id) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == id) {
+                values[i] = slot;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = id;
+        values[i] = slot;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Removes {@code id} if present. */
+    void remove(int id) {
+        int mask = keys.length - 1;
+        int i = mix(id) & mask;
+        while (keys[i] != id) {
+            if (keys[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // Move back each later entry of the run that may no longer be reachable past the gap.
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+    }
+
+    /** Removes every entry. */
+    void clear() {
+        keys = new int[16];
+        values = new int[16];
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != 0) {
+                int i = mix(oldKeys[k]) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    /** Spreads consecutive ids over the table. */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,34 @@
+package quokka;
+
+/**
+ * Small DTO describing one {@link Storage#load} run: how much was read and how fast.
+ */
+public class LoadStats {
+    public final int tasks;
+    public final int skipped;
+    public final long bytes;
+    public final long nanos;
+
+    public LoadStats(int tasks, int skipped, long bytes, long nanos) {
+        this.tasks = tasks;
+        this.skipped = skipped;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    /** Throughput in MiB per second (0 if the load took no measurable time). */
+    public double mibPerSecond() {
+        return nanos <= 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+
+    /** Records parsed per second (0 if the load took no measurable time). */
+    public double tasksPerSecond() {
+        return nanos <= 0 ? 0 : tasks / (nanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Loaded %d tasks (%d skipped, %d bytes) in %.1f ms: %.1f MiB/s, %.0f tasks/s",
+            tasks, skipped, bytes, nanos / 1e6, mibPerSecond(), tasksPerSecond());
+    }
+}
@@ -1,22 +1,26 @@
 package quokka;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
+import java.nio.file.Paths;
 import java.util.Objects;
 
 /**
@@ -25,11 +29,20 @@ import java.util.Objects;
  */
 public class Main extends Application {
 
+    /** Messages kept on screen unless overridden with -Dquokka.history=N; older ones go to disk. */
+    private static final int DEFAULT_HISTORY = 1000;
+
     private Quokka quokka;
+    private CommandExecutor commands;
+    /** Commands sent but not yet answered; only touched on the FX thread. */
+    private int pending;
+    private ProgressIndicator pendingIndicator;
+
+    private BorderPane root;
+    private TaskPanel taskPanel;
 
-    private VBox dialog;
-    private ScrollPane scroller;
-    private VBox lane;
+    private Transcript transcript;
+    private ListView<ChatMessage> chatView;
 
     private Image botAvatar;
     private Image userAvatar;
@@ -37,7 +50,7 @@ public class Main extends Application {
     @Override
     public void start(Stage stage) {
         // ----- Root -----
-        BorderPane root = new BorderPane();
+        root = new BorderPane();
         root.getStyleClass().add("hk-pane");
         root.setPadding(new Insets(12));
 
@@ -48,39 +61,34 @@ public class Main extends Application {
         ImageView titleIcon = loadIconView("/images/knight.png", 22);
         Label header = new Label(AppInfo.PRODUCT_NAME);
         header.getStyleClass().add("hk-header");
+        Region headerSpacer = new Region();
+        HBox.setHgrow(headerSpacer, Priority.ALWAYS);
+        ToggleButton tasksToggle = new ToggleButton("Tasks");
+        tasksToggle.getStyleClass().add("hk-toggle");
+        tasksToggle.setFocusTraversable(false);
         headerBar.getChildren().addAll(
-            titleIcon != null ? titleIcon : new Label(), header
+            titleIcon != null ? titleIcon : new Label(), header, headerSpacer, tasksToggle
         );
         root.setTop(headerBar);
 
-        // ----- Dialog Area (centered column) -----
-        dialog = new VBox(10);
-        dialog.setFillWidth(true);
-
-        lane = new VBox(dialog);
-        lane.setAlignment(Pos.TOP_CENTER);
-        lane.setPadding(new Insets(8, 12, 12, 12));
-        lane.setMaxWidth(720);
-        lane.getStyleClass().add("lane");
-
-        StackPane content = new StackPane(lane);
-        StackPane.setAlignment(lane, Pos.TOP_CENTER);
-
-        scroller = new ScrollPane(content);
-        scroller.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
-        content.setStyle("-fx-background-color: transparent;");
-        lane.setStyle("-fx-background-color: transparent;");
-        dialog.setStyle("-fx-background-color: transparent;");
-
-        scroller.setFitToWidth(true);
-        scroller.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-        scroller.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        scroller.setPannable(true);
-
-        // Auto-scroll to bottom on new messages
-        dialog.heightProperty().addListener((obs, oldVal, newVal) -> scroller.setVvalue(1.0));
-
-        root.setCenter(scroller);
+        // ----- Dialog Area (virtualized, centered column) -----
+        transcript = new Transcript(Integer.getInteger("quokka.history", DEFAULT_HISTORY),
+            Paths.get("data", "transcript.log"));
+        chatView = new ListView<>(transcript.messages());
+        chatView.getStyleClass().add("chat-list");
+        chatView.setFocusTraversable(false);
+        chatView.setMaxWidth(720);
+        // Avatars are read when cells are first created, i.e. after they are loaded below.
+        chatView.setCellFactory(v -> new ChatCell(botAvatar, userAvatar, chatView.widthProperty()));
+
+        StackPane content = new StackPane(chatView);
+        content.setPadding(new Insets(8, 12, 12, 12));
+        StackPane.setAlignment(chatView, Pos.TOP_CENTER);
+        root.setCenter(content);
+
+        // ----- Task panel (hidden until toggled or `list`) -----
+        taskPanel = new TaskPanel();
+        tasksToggle.setOnAction(e -> setTaskPanelVisible(tasksToggle.isSelected()));
 
         // ----- Input Bar -----
         TextField input = new TextField();
@@ -91,7 +99,16 @@ public class Main extends Application {
         send.getStyleClass().add("hk-send");
         send.setDefaultButton(true); // Enter triggers
 
-        HBox inputBar = new HBox(10, input, send);
+        // Spinner shown while commands are running in the background.
+        pendingIndicator = new ProgressIndicator();
+        pendingIndicator.getStyleClass().add("hk-pending");
+        pendingIndicator.setPrefSize(22, 22);
+        pendingIndicator.setMaxSize(22, 22);
+        pendingIndicator.setVisible(false);
+        pendingIndicator.setManaged(false);
+
+        HBox inputBar = new HBox(10, input, pendingIndicator, send);
+        inputBar.setAlignment(Pos.CENTER_LEFT);
         inputBar.getStyleClass().add("input-bar");
         inputBar.setPadding(new Insets(10, 12, 8, 12));
         HBox.setHgrow(input, Priority.ALWAYS);
@@ -103,12 +120,34 @@ public class Main extends Application {
             if (cmd.isEmpty()) return;
 
             addUser(cmd);
+            input.clear();
 
-            Reply r = quokka.process(cmd);
-            addBot(r.message, r.error);
+            ParsedCommand parsed = Parser.parse(cmd);
+            if (parsed.command().equals("list") && parsed.remainder().isEmpty()) {
+                // Show the whole list in the task panel instead of rendering it into one huge bubble.
+                tasksToggle.setSelected(true);
+                setTaskPanelVisible(true);
+                setPending(pending + 1);
+                commands.snapshotTasks().thenAccept(rows -> Platform.runLater(() -> {
+                    setPending(pending - 1);
+                    taskPanel.show(rows);
+                    addBot(rows.isEmpty() ? "Your list is empty."
+                        : "Here are the tasks in your list (" + rows.size() + ", see the task panel).", false);
+                }));
+                return;
+            }
 
-            input.clear();
-            if (r.exit) stage.close();
+            // Run off the FX thread; replies come back in submission order.
+            setPending(pending + 1);
+            commands.submit(cmd).thenAccept(r -> Platform.runLater(() -> {
+                setPending(pending - 1);
+                addBot(r.message, r.error);
+                if (r.exit) {
+                    stage.close();
+                } else if (root.getRight() != null) {
+                    refreshTaskPanel();
+                }
+            }));
         });
         input.setOnAction(send.getOnAction());
 
@@ -117,7 +156,7 @@ public class Main extends Application {
             switch (ev.getCode()) {
                 case L:
                     if (ev.isControlDown()) {
-                        dialog.getChildren().clear();
+                        transcript.clear();
                         addBot("Cleared.", false);
                     }
                     break;
@@ -153,58 +192,58 @@ public class Main extends Application {
             userAvatar = botIcon;
         }
 
-        quokka = new Quokka("data/tasks.txt");
+        quokka = new Quokka("data/tasks.txt", StorageOptions.defaults().withHotReload(true).withStoreFromProperties());
+        commands = new CommandExecutor(quokka);
+        // Edits by other programs are reloaded on a watcher thread; say so in the chat.
+        quokka.setReloadListener(report -> Platform.runLater(() -> {
+            addBot(report, report.startsWith("Warning"));
+            if (root.getRight() != null) {
+                refreshTaskPanel();
+            }
+        }));
         stage.show();
 
         addBot("Hello! I’m " + AppInfo.PRODUCT_NAME + ". Type a command.", false);
     }
 
-    // -------- Chat row builders --------
-
-    private void addBot(String text, boolean isError) {
-        Label bubble = new Label(text);
-        bubble.setWrapText(true);
-        bubble.getStyleClass().add("bot-bubble");
-        if (isError || text.startsWith("OOPS!!!")) {
-            bubble.getStyleClass().add("error-bubble");
+    @Override
+    public void stop() {
+        if (commands != null) {
+            commands.close();
         }
+    }
 
-        bubble.maxWidthProperty().bind(lane.widthProperty().subtract(120));
-
-        HBox row = new HBox(10);
-        row.getStyleClass().add("row");
-        row.setAlignment(Pos.TOP_LEFT);
-
-        ImageView avatar = avatarView(botAvatar, 42, false);
-
-        if (avatar != null) {
-            row.getChildren().addAll(avatar, bubble);
-        } else {
-            row.getChildren().add(bubble);
+    private void setTaskPanelVisible(boolean visible) {
+        root.setRight(visible ? taskPanel : null);
+        if (visible) {
+            refreshTaskPanel();
         }
+    }
 
-        dialog.getChildren().add(row);
+    /** Queue a snapshot behind pending commands and show it when it arrives. */
+    private void refreshTaskPanel() {
+        commands.snapshotTasks().thenAccept(rows -> Platform.runLater(() -> taskPanel.show(rows)));
     }
 
-    private void addUser(String text) {
-        Label chip = new Label(text);
-        chip.setWrapText(true);
-        chip.getStyleClass().add("user-chip");
-        chip.maxWidthProperty().bind(lane.widthProperty().subtract(120));
+    private void setPending(int count) {
+        pending = count;
+        pendingIndicator.setVisible(count > 0);
+        pendingIndicator.setManaged(count > 0);
+    }
 
-        HBox row = new HBox(10);
-        row.getStyleClass().add("row");
-        row.setAlignment(Pos.TOP_RIGHT);
+    // -------- Transcript --------
 
-        ImageView avatar = avatarView(userAvatar, 42, true);
+    private void addBot(String text, boolean isError) {
+        append(ChatMessage.bot(text, isError));
+    }
 
-        if (avatar != null) {
-            row.getChildren().addAll(chip, avatar);
-        } else {
-            row.getChildren().add(chip);
-        }
+    private void addUser(String text) {
+        append(ChatMessage.user(text));
+    }
 
-        dialog.getChildren().add(row);
+    private void append(ChatMessage message) {
+        transcript.add(message);
+        chatView.scrollTo(transcript.messages().size() - 1);
     }
 
     // -------- Helpers --------
@@ -230,15 +269,4 @@ public class Main extends Application {
         return iv;
     }
 
-    private ImageView avatarView(Image img, double size, boolean mirror) {
-        if (img == null) return null;
-        ImageView iv = new ImageView(img);
-        iv.setFitWidth(size);
-        iv.setFitHeight(size);
-        iv.setPreserveRatio(true);
-        if (mirror) iv.setScaleX(-1);
-        iv.getStyleClass().add("avatar");
-        return iv;
-    }
-
 }
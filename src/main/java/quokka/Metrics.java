@@ -0,0 +1,141 @@
+package quokka;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-command counters and per-phase latency histograms for {@link Quokka#process}.
+ * <p>
+ * Recording methods only touch preallocated counters, so instrumenting the command
+ * path adds no garbage. Readers call {@link #snapshot()} for an immutable copy.
+ */
+public final class Metrics {
+
+    /** Steps a command goes through; not every command uses every phase. */
+    public enum Phase {
+        PARSE, VALIDATE, DUPLICATE_CHECK, QUERY, MUTATE, PERSIST, RENDER;
+
+        private static final Phase[] ALL = values();
+    }
+
+    /** Command words tracked individually; anything else is counted as "other". */
+    private static final String[] COMMANDS = {
+        "list", "todo", "deadline", "event", "mark", "unmark", "delete",
+        "find", "due", "overdue", "between", "undo", "redo", "use", "stats", "bye", "other",
+    };
+    private static final int OTHER = COMMANDS.length - 1;
+
+    private final AtomicLongArray commandCounts = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray commandErrors = new AtomicLongArray(COMMANDS.length);
+    private final Histogram[] commandLatency = new Histogram[COMMANDS.length];
+    private final Histogram[] phaseLatency = new Histogram[Phase.ALL.length];
+
+    public Metrics() {
+        for (int i = 0; i < commandLatency.length; i++) {
+            commandLatency[i] = new Histogram();
+        }
+        for (int i = 0; i < phaseLatency.length; i++) {
+            phaseLatency[i] = new Histogram();
+        }
+    }
+
+    /** Record the time spent in one phase of a command. */
+    public void recordPhase(Phase phase, long nanos) {
+        phaseLatency[phase.ordinal()].record(nanos);
+    }
+
+    /** Record a finished command: its word (as typed), total latency and outcome. */
+    public void recordCommand(String commandWord, long nanos, boolean error) {
+        int i = indexOf(commandWord);
+        commandCounts.incrementAndGet(i);
+        if (error) {
+            commandErrors.incrementAndGet(i);
+        }
+        commandLatency[i].record(nanos);
+    }
+
+    private static int indexOf(String commandWord) {
+        for (int i = 0; i < OTHER; i++) {
+            if (COMMANDS[i].equals(commandWord)) {
+                return i;
+            }
+        }
+        return OTHER;
+    }
+
+    /** Copy of all counters; {@code storageBytes} is reported alongside as-is. */
+    public Snapshot snapshot(long storageBytes) {
+        Map<String, CommandStats> commands = new LinkedHashMap<>();
+        for (int i = 0; i < COMMANDS.length; i++) {
+            long n = commandCounts.get(i);
+            if (n > 0) {
+                commands.put(COMMANDS[i], new CommandStats(n, commandErrors.get(i), commandLatency[i].snapshot()));
+            }
+        }
+        Map<Phase, Histogram.Snapshot> phases = new EnumMap<>(Phase.class);
+        for (Phase p : Phase.ALL) {
+            Histogram h = phaseLatency[p.ordinal()];
+            if (h.count() > 0) {
+                phases.put(p, h.snapshot());
+            }
+        }
+        return new Snapshot(commands, phases, storageBytes);
+    }
+
+    /** Count, errors and latency of one command word. */
+    public static final class CommandStats {
+        public final long count;
+        public final long errors;
+        public final Histogram.Snapshot latency;
+
+        CommandStats(long count, long errors, Histogram.Snapshot latency) {
+            this.count = count;
+            this.errors = errors;
+            this.latency = latency;
+        }
+    }
+
+    /** Immutable view of the metrics at one point in time. Latencies are in nanoseconds. */
+    public static final class Snapshot {
+        public final Map<String, CommandStats> commands;
+        public final Map<Phase, Histogram.Snapshot> phases;
+        public final long storageBytesWritten;
+
+        Snapshot(Map<String, CommandStats> commands, Map<Phase, Histogram.Snapshot> phases, long storageBytes) {
+            this.commands = Collections.unmodifiableMap(commands);
+            this.phases = Collections.unmodifiableMap(phases);
+            this.storageBytesWritten = storageBytes;
+        }
+
+        /** Human-readable table, as shown by the {@code stats} command. */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Commands (count, errors, p50/p99/max latency):");
+            if (commands.isEmpty()) {
+                sb.append("\n  none yet");
+            }
+            for (Map.Entry<String, CommandStats> e : commands.entrySet()) {
+                CommandStats c = e.getValue();
+                sb.append(String.format("%n  %-9s %7d %5d  %s", e.getKey(), c.count, c.errors, latencies(c.latency)));
+            }
+            sb.append("\nPhases (count, p50/p99/max latency):");
+            for (Map.Entry<Phase, Histogram.Snapshot> e : phases.entrySet()) {
+                sb.append(String.format("%n  %-15s %7d  %s", e.getKey().name().toLowerCase(), e.getValue().count,
+                    latencies(e.getValue())));
+            }
+            sb.append("\nStorage: ").append(storageBytesWritten).append(" bytes written");
+            return sb.toString();
+        }
+
+        private static String latencies(Histogram.Snapshot h) {
+            return micros(h.p50) + " / " + micros(h.p99) + " / " + micros(h.max);
+        }
+
+        private static String micros(long nanos) {
+            return nanos < 1_000_000 ? String.format("%.1f us", nanos / 1e3) : String.format("%.2f ms", nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package quokka;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The task lines of one data file, read on demand for {@link TaskPages}. Only an index stays
+ * on the heap: where each record (a line that parsed as a task) starts and the id it was
+ * given. Records are decoded a page of {@value #PAGE} at a time, with one positional read per
+ * page, into a bounded LRU cache; the operating system's file cache keeps the bytes.
+ * <p>
+ * The file is read through a channel opened once, so it must not be rewritten in place while
+ * in use. Storage only ever moves a new file over it, which leaves the channel reading the
+ * old contents. The channel is closed once nothing refers to this view any more.
+ */
+final class PagedFile {
+    /** Records decoded together on a cache miss. */
+    static final int PAGE = 64;
+    /** Decoded records kept per file ({@code -Dquokka.pageCacheTasks}). */
+    static final int CACHE_TASKS = Integer.getInteger("quokka.pageCacheTasks", 65_536);
+
+    static final PagedFile EMPTY = new PagedFile();
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    /** Start of each record, then the end of the data. */
+    private final long[] offsets;
+    private final int[] ids;
+    private final int count;
+    /** Records whose line is exactly their data line, so a save may copy its bytes; null if all are. */
+    private final BitSet verbatim;
+    /** Records that are done, so that can be checked without decoding them. */
+    private final BitSet done;
+    /** Page number -> its decoded records, least recently used first. */
+    private final Map<Integer, Task[]> cache;
+
+    private PagedFile() {
+        this.channel = null;
+        this.offsets = new long[1];
+        this.ids = new int[0];
+        this.count = 0;
+        this.verbatim = null;
+        this.done = new BitSet();
+        this.cache = Map.of();
+    }
+
+    /**
+     * @param offsets start of each of the {@code count} records, then the end of the data
+     * @param ids id of each record
+     * @param verbatim records that may be copied byte for byte, or null for all of them
+     * @param done records that are done
+     * @param cachePages most decoded pages to keep
+     */
+    PagedFile(Path file, long[] offsets, int[] ids, int count, BitSet verbatim, BitSet done, int cachePages)
+            throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        CLEANER.register(this, () -> {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                // Nothing reads from it any more.
+            }
+        });
+        this.channel = ch;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.count = count;
+        this.verbatim = verbatim;
+        this.done = done;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Integer, Task[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task[]> eldest) {
+                return size() > Math.max(1, cachePages);
+            }
+        });
+    }
+
+    /** Number of records. */
+    int size() {
+        return count;
+    }
+
+    /** Id of record {@code r}. */
+    int id(int r) {
+        return ids[r];
+    }
+
+    /** Gives record {@code r} a new id; only while loading, before the file is read from. */
+    void assignId(int r, int id) {
+        ids[r] = id;
+    }
+
+    /** True if record {@code r} is done. */
+    boolean done(int r) {
+        return done.get(r);
+    }
+
+    /** True if record {@code r} is saved exactly as {@link Storage#dataLine} would write it. */
+    boolean verbatim(int r) {
+        return verbatim == null || verbatim.get(r);
+    }
+
+    /** Record {@code r} as a task; the same object while its page stays cached. */
+    Task task(int r) {
+        int page = r / PAGE;
+        Task[] tasks = cache.get(page);
+        if (tasks == null) {
+            tasks = decodePage(page);
+            cache.put(page, tasks);
+        }
+        return tasks[r % PAGE];
+    }
+
+    /** Pages currently decoded. */
+    int cachedPages() {
+        return cache.size();
+    }
+
+    /** A cursor for reading records in ascending order without decoding them. */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private Task[] decodePage(int page) {
+        Cursor c = new Cursor();
+        int first = page * PAGE;
+        Task[] tasks = new Task[Math.min(PAGE, count - first)];
+        for (int k = 0; k < tasks.length; k++) {
+            c.seek(first + k);
+            tasks[k] = c.decode();
+        }
+        return tasks;
+    }
+
+    /** Reads the raw line of one record at a time, fetching the bytes of a whole page at once. */
+    final class Cursor {
+        private int page = -1;
+        private byte[] bytes;
+        /** File offset of {@code bytes[0]}. */
+        private long base;
+        private int record;
+        private int start;
+        private int end;
+
+        /** Moves to record {@code r}, reading its page unless it is the current one. */
+        void seek(int r) {
+            int p = r / PAGE;
+            if (p != page) {
+                base = offsets[p * PAGE];
+                bytes = read(base, offsets[Math.min(count, (p + 1) * PAGE)]);
+                page = p;
+            }
+            record = r;
+            start = (int) (offsets[r] - base);
+            int limit = (int) (offsets[r + 1] - base);
+            end = start;
+            while (end < limit && bytes[end] != '\n') {
+                end++;
+            }
+            if (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+        }
+
+        /**
+         * False only if the line cannot contain the lower-case ASCII {@code needle} in any
+         * letter case. Lines with other characters always might, since lower-casing them can
+         * produce ASCII letters.
+         */
+        boolean mayContain(byte[] needle) {
+            for (int i = start; i < end; i++) {
+                if (bytes[i] < 0) {
+                    return true;
+                }
+            }
+            outer:
+            for (int i = start; i + needle.length <= end; i++) {
+                for (int k = 0; k < needle.length; k++) {
+                    byte b = bytes[i + k];
+                    if (b >= 'A' && b <= 'Z') {
+                        b += 'a' - 'A';
+                    }
+                    if (b != needle[k]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /** Writes the line without its terminator and returns the number of bytes written. */
+        int copyTo(OutputStream out) throws IOException {
+            out.write(bytes, start, end - start);
+            return end - start;
+        }
+
+        /** Parses the line; it parsed when the file was read, so a failure means the file was changed under us. */
+        Task decode() {
+            String line = Storage.stripBom(new String(bytes, start, end - start, StandardCharsets.UTF_8)).trim();
+            try {
+                Task t = Storage.parseLine(line);
+                t.setId(ids[record]);
+                return t;
+            } catch (DukeException | RuntimeException e) {
+                throw new IllegalStateException("Data file changed while in use, record " + record + ": " + line, e);
+            }
+        }
+
+        private byte[] read(long from, long to) {
+            ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(to - from));
+            try {
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, from + buf.position()) < 0) {
+                        throw new IOException("Data file is shorter than when it was read");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buf.array();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package quokka;
+
+/**
+ * Result of {@link Parser#parse}: the command word, the normalized remainder, the free-text
+ * description in front of the first flag, and the values of named {@code /flag} arguments
+ * in the order they appeared.
+ */
+public final class ParsedCommand {
+    private final String command;
+    private final String remainder;
+    private final String description;
+    private final String[] flagNames;
+    private final String[] flagValues;
+
+    ParsedCommand(String command, String remainder, String description, String[] flagNames, String[] flagValues) {
+        this.command = command;
+        this.remainder = remainder;
+        this.description = description;
+        this.flagNames = flagNames;
+        this.flagValues = flagValues;
+    }
+
+    /** First word of the input, or "" for blank input. */
+    public String command() {
+        return command;
+    }
+
+    /** Everything after the command word, with whitespace normalized. */
+    public String remainder() {
+        return remainder;
+    }
+
+    /** Text between the command word and the first flag (the whole remainder if there is none). */
+    public String description() {
+        return description;
+    }
+
+    /** Value of the first occurrence of {@code /name}, or null if absent. */
+    public String flag(String name) {
+        int i = flagPosition(name);
+        return i < 0 ? null : flagValues[i];
+    }
+
+    /** How many times {@code /name} occurred. */
+    public int flagCount(String name) {
+        int n = 0;
+        for (String f : flagNames) {
+            if (f.equals(name)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Total number of flags of any name. */
+    public int flagCount() {
+        return flagNames.length;
+    }
+
+    /** Order (0-based) of the first occurrence of {@code /name} among all flags, or -1. */
+    public int flagPosition(String name) {
+        for (int i = 0; i < flagNames.length; i++) {
+            if (flagNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
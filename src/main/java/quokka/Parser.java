@@ -3,33 +3,160 @@
  */
 package quokka;
 
+import java.util.Arrays;
+
 public class Parser {
 
+    private static final String[] NO_FLAGS = {};
+    private static final String[] DEADLINE_FLAGS = { "by" };
+    private static final String[] EVENT_FLAGS = { "from", "to" };
+    private static final String[] RANGE_FLAGS = { "to" };
+
+    /**
+     * Tokenizes a command in one pass over the input, without regexes.
+     * Whitespace (including NBSP) is collapsed to single spaces and trimmed. Only the flags the
+     * command understands are split out ({@code /by} for deadline, {@code /from} and {@code /to}
+     * for event, {@code /to} for between); any other text stays in the description or value.
+     * A flag word counts when it is neither the first word after the command nor the last word,
+     * i.e. exactly when {@code " /by "} would occur in the normalized remainder.
+     */
+    public static ParsedCommand parse(String input) {
+        String in = input == null ? "" : input;
+        StringBuilder sb = new StringBuilder(in.length());
+        int cmdEnd = 0;
+        String command = "";
+        String[] known = NO_FLAGS;
+        int words = 0;
+        int wordStart = -1;
+        boolean pendingSpace = false;
+        int flags = 0;
+        int[] flagStart = new int[2];
+        int[] flagEnd = new int[2];
+        int[] flagWord = new int[2];
+        String[] flagName = new String[2];
+        for (int i = 0, n = in.length(); i <= n; i++) {
+            char c = i < n ? in.charAt(i) : ' ';
+            if (!isSpace(c)) {
+                if (wordStart < 0) {
+                    if (pendingSpace) {
+                        sb.append(' ');
+                        pendingSpace = false;
+                    }
+                    wordStart = sb.length();
+                }
+                sb.append(c);
+                continue;
+            }
+            if (wordStart < 0) {
+                continue;
+            }
+            // A word just ended at sb.length().
+            words++;
+            if (words == 1) {
+                cmdEnd = sb.length();
+                command = sb.toString();
+                known = flagsFor(command);
+            } else if (words >= 3 && sb.charAt(wordStart) == '/') {
+                String name = flagName(known, sb, wordStart + 1, sb.length());
+                if (name != null) {
+                    if (flags == flagStart.length) {
+                        flagStart = Arrays.copyOf(flagStart, flags * 2);
+                        flagEnd = Arrays.copyOf(flagEnd, flags * 2);
+                        flagWord = Arrays.copyOf(flagWord, flags * 2);
+                        flagName = Arrays.copyOf(flagName, flags * 2);
+                    }
+                    flagStart[flags] = wordStart;
+                    flagEnd[flags] = sb.length();
+                    flagWord[flags] = words;
+                    flagName[flags] = name;
+                    flags++;
+                }
+            }
+            wordStart = -1;
+            pendingSpace = true;
+        }
+        if (flags > 0 && flagWord[flags - 1] == words) {
+            flags--; // a trailing flag with nothing after it is plain text
+        }
+
+        String normalized = sb.toString();
+        String remainder = words < 2 ? "" : normalized.substring(cmdEnd + 1);
+        String description = flags == 0 ? remainder : normalized.substring(cmdEnd + 1, flagStart[0] - 1);
+        String[] names = new String[flags];
+        String[] values = new String[flags];
+        for (int f = 0; f < flags; f++) {
+            int from = flagEnd[f] + 1;
+            int to = f + 1 < flags ? flagStart[f + 1] - 1 : normalized.length();
+            names[f] = flagName[f];
+            values[f] = from < to ? normalized.substring(from, to) : "";
+        }
+        return new ParsedCommand(command, remainder, description, names, values);
+    }
+
+    /** Whitespace as matched by the regex {@code \s}, plus NBSP. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '\u00A0';
+    }
+
+    private static String[] flagsFor(String command) {
+        switch (command) {
+            case "deadline":
+                return DEADLINE_FLAGS;
+            case "event":
+                return EVENT_FLAGS;
+            case "between":
+                return RANGE_FLAGS;
+            default:
+                return NO_FLAGS;
+        }
+    }
+
+    /** Returns the name in {@code known} spelled by sb[from, to), else null. */
+    private static String flagName(String[] known, StringBuilder sb, int from, int to) {
+        for (String f : known) {
+            if (f.length() == to - from) {
+                boolean same = true;
+                for (int i = 0; i < f.length() && same; i++) {
+                    same = sb.charAt(from + i) == f.charAt(i);
+                }
+                if (same) {
+                    return f;
+                }
+            }
+        }
+        return null;
+    }
+
     /** Normalize unicode spaces (e.g., NBSP) and trim. */
     private static String normalize(String s) {
         if (s == null) return "";
-        String t = s.replace('\u00A0', ' ');
-        t = t.trim();
-        t = t.replaceAll("\\s+", " ");
-        return t;
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isSpace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
     }
 
 
     public static String commandWord(String input) {
-        String s = normalize(input);
-        if (s.isEmpty()) return "";
-        int sp = s.indexOf(' ');
-        String result = (sp == -1) ? s : s.substring(0, sp);
+        String result = parse(input).command();
         assert result != null : "Parser.commandWord must not return null";
         assert result.indexOf(' ') == -1 : "commandWord should contain no spaces";
         return result;
     }
 
     public static String remainder(String input) {
-        String s = normalize(input);
-        if (s.isEmpty()) return "";
-        int sp = s.indexOf(' ');
-        String result = (sp == -1) ? "" : s.substring(sp + 1).trim();
+        String result = parse(input).remainder();
         assert result != null : "Parser.remainder must not return null";
         assert result.equals(result.trim()) : "remainder should be trimmed";
         return result;
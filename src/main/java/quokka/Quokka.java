@@ -1,9 +1,15 @@
 package quokka;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Consumer;
 import quokka.Reply;
 
 
@@ -16,95 +22,281 @@ import quokka.Reply;
  */
 public class Quokka {
 
+    /** Rows per page for {@code list <page>} when no size is given. */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    /** Option of {@code find} that caps the number of matches. */
+    private static final String LIMIT_OPTION = "--limit ";
+    /** Option of {@code list} that shows each task's id, for {@code mark #<id>} and friends. */
+    private static final String IDS_OPTION = "--ids";
+    /** Selections of {@code mark}, {@code unmark} and {@code delete} that name many tasks at once. */
+    private static final String SELECT_ALL = "all";
+    private static final String SELECT_DONE = "done";
+    private static final String SELECT_UNDONE = "undone";
+
+    /** Workspace selected at startup, stored in the data file given to the constructor. */
+    static final String DEFAULT_WORKSPACE = "default";
+    /** Estimated heap the loaded workspaces may use before the least recently used are dropped. */
+    private static final long DEFAULT_WORKSPACE_CACHE_BYTES = 256L << 20;
+    private static final int MAX_WORKSPACE_NAME = 32;
+    /** Changes per workspace that {@code undo} can revert, unless {@code quokka.undoDepth} says otherwise. */
+    private static final int DEFAULT_UNDO_DEPTH = 100;
+
     private final Ui ui;
-    private final TaskList taskList;
     private final Path dataFile;
+    private final WorkspaceCache workspaces;
+    /** Workspace that commands act on; written under this, read lock-free by {@link #snapshotTasks}. */
+    private volatile Workspace current;
+    private final Metrics metrics = new Metrics();
+    /** Start of the phase being timed by {@link #lap}; guarded by this. */
+    private long phaseStart;
+    /** Told the report of each reload by the watcher thread; see {@link #setReloadListener}. */
+    private volatile Consumer<String> reloadListener = System.err::println;
 
-    /** Creates a bot backed by data/tasks.txt. */
+    /** Creates a bot backed by data/tasks.txt, with the task store chosen by {@code -Dquokka.store}. */
     public Quokka() {
-        this(Paths.get("data", "tasks.txt"));
+        this(Paths.get("data", "tasks.txt"), StorageOptions.defaults().withStoreFromProperties());
     }
 
     /** Creates a bot backed by the given data file (relative or absolute). */
     public Quokka(String filePath) {
-        this(Paths.get(filePath));
+        this(Paths.get(filePath), StorageOptions.defaults());
+    }
+
+    /**
+     * Creates a bot backed by the given data file, persisting with the given options
+     * (journal vs. full rewrite, and how eagerly writes reach the disk).
+     */
+    public Quokka(String filePath, StorageOptions options) {
+        this(Paths.get(filePath), options);
+    }
+
+    /**
+     * Like {@link #Quokka(String, StorageOptions)}, with the budget of the workspace cache
+     * given explicitly instead of read from the {@code quokka.workspaceCacheBytes} property.
+     */
+    Quokka(String filePath, StorageOptions options, long workspaceCacheBytes) {
+        this(Paths.get(filePath), options, workspaceCacheBytes);
     }
 
-    private Quokka(Path dataFile) {
+    private Quokka(Path dataFile, StorageOptions options) {
+        this(dataFile, options, Long.getLong("quokka.workspaceCacheBytes", DEFAULT_WORKSPACE_CACHE_BYTES));
+    }
+
+    private Quokka(Path dataFile, StorageOptions options, long workspaceCacheBytes) {
         this.ui = new Ui();
-        this.taskList = new TaskList();
         this.dataFile = dataFile;
-
-        // Load tasks, creating folders/files if missing. Skip malformed lines.
-        try {
-            Storage.load(this.dataFile, this.taskList.view());
-        } catch (DukeException e) {
-            System.err.println("Warning: failed to load tasks: " + e.getMessage());
+        int undoDepth = Math.max(0, Integer.getInteger("quokka.undoDepth", DEFAULT_UNDO_DEPTH));
+        this.workspaces = new WorkspaceCache(workspaceCacheBytes,
+            name -> Workspace.open(name, workspaceFile(name), options, undoDepth, this, this::reloadAndReport));
+        synchronized (this) {
+            this.current = workspaces.get(DEFAULT_WORKSPACE);
         }
     }
 
+    /** Counts and throughput of the startup load, or null if it failed. */
+    public LoadStats getLoadStats() {
+        return current.loadStats;
+    }
+
+    /** Name of the workspace that commands currently act on. */
+    public String getWorkspace() {
+        return current.name;
+    }
+
+    /** Hit/miss/eviction counters and footprint of the workspace cache. */
+    public synchronized WorkspaceCache.Stats getWorkspaceStats() {
+        return workspaces.stats();
+    }
+
+    /** Command counts, phase latencies and bytes written so far, as shown by {@code stats}. */
+    public Metrics.Snapshot getMetrics() {
+        return metrics.snapshot(Storage.bytesWritten());
+    }
+
+    /**
+     * Sets who is told when a data file edited by another program was reloaded, or why it was
+     * not (unsaved changes to the same tasks, a failed read). Called on the watcher thread with
+     * the report of {@link #reload}; by default the report goes to stderr.
+     */
+    public void setReloadListener(Consumer<String> listener) {
+        this.reloadListener = listener;
+    }
+
+    /** Immutable snapshot of the tasks; lock-free, so it never waits for a running command. */
+    public List<Task> snapshotTasks() {
+        return current.tasks.view();
+    }
+
     /**
      * Main CLI loop (text UI).
      * Prints the greeting, then processes lines until "bye".
      */
     public void run() throws IOException {
         printGreeting();
+        // Replies go through one buffered writer; listings stream into it row by row.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
         while (true) {
             String line = ui.readCommand();
             if (line == null) { // EOF behaves like bye
+                close();
                 ui.showGoodbye();
                 break;
             }
-            Reply r = process(line);
+            Reply r = process(line, out);
+            out.flush();
             if (r.error) {
                 ui.showError(r.message);
-            } else if (!r.message.isEmpty()) {
-                System.out.println(r.message);
             }
             if (r.exit) {
+                close();
                 ui.showGoodbye();
                 break;
             }
         }
     }
 
+    /**
+     * Waits for pending writes and stops the background flusher.
+     * Failures are reported on stderr since there is no command to reply to.
+     */
+    public void close() {
+        for (Workspace w : loadedWorkspaces()) {
+            w.stopWatching();
+            try {
+                w.flusher.close();
+            } catch (DukeException e) {
+                System.err.println("Warning: failed to save tasks: " + e.getMessage());
+            }
+        }
+    }
+
     /** Processes one command and returns a reply (no printing). */
     public Reply process(String fullCommand) {
+        return process(fullCommand, null);
+    }
+
+    /**
+     * Processes one command, writing the text of a successful reply to {@code out}
+     * (followed by a newline) instead of returning it. Task listings are streamed row
+     * by row, so large lists are never built into one string. Errors are returned as
+     * usual and nothing is written; successful replies come back with an empty message.
+     *
+     * @param out destination for successful output, or null to return it in the reply
+     */
+    public Reply process(String fullCommand, Appendable out) {
+        Reply r = apply(fullCommand, out);
+        if (r.exit) {
+            // Flush outside the monitor: the flusher thread needs it to take its snapshot.
+            try {
+                for (Workspace w : loadedWorkspaces()) {
+                    w.flusher.flush();
+                }
+            } catch (DukeException e) {
+                return Reply.error(e.getMessage()).withExit();
+            }
+        }
+        return r;
+    }
+
+    synchronized List<Workspace> loadedWorkspaces() {
+        return workspaces.loaded();
+    }
+
+    /** Applies one command under the lock shared with the background flusher. */
+    private synchronized Reply apply(String fullCommand, Appendable out) {
+        long start = System.nanoTime();
+        phaseStart = start;
+        ParsedCommand pc = Parser.parse(fullCommand);
+        lap(Metrics.Phase.PARSE);
+        Reply r = execute(pc, out);
+        // The current workspace may have grown past the cache budget; also retries busy evictions.
+        workspaces.trim(current);
+        if (out != null && !r.error && !r.message.isEmpty()) {
+            try {
+                out.append(r.message).append('\n');
+                r = r.exit ? Reply.ok("").withExit() : Reply.ok("");
+            } catch (IOException e) {
+                r = Reply.error("OOPS!!! Unable to write output: " + e.getMessage());
+            }
+        }
+        if (!r.error) {
+            lap(Metrics.Phase.RENDER);
+        }
+        metrics.recordCommand(pc.command(), System.nanoTime() - start, r.error);
+        return r;
+    }
+
+    /**
+     * Runs a parsed command, timing its phases with {@link #lap}. Caller holds the lock.
+     * Task listings are written straight to {@code out} when it is non-null.
+     */
+    private Reply execute(ParsedCommand pc, Appendable out) {
         try {
-            String cmd = Parser.commandWord(fullCommand);
-            String rem = Parser.remainder(fullCommand);
+            String cmd = pc.command();
+            String rem = pc.remainder();
+            String line = rem.isEmpty() ? cmd : cmd + " " + rem;
+            TaskList taskList = current.tasks;
 
             switch (cmd) {
                 case "":
                     return Reply.ok(""); // ignore pure whitespace
                 case "list": {
-                    return Reply.ok(renderTaskList(taskList.view(), "Here are the tasks in your list:"));
+                    List<Task> all = taskList.view();
+                    boolean ids = rem.equals(IDS_OPTION) || rem.endsWith(" " + IDS_OPTION);
+                    if (ids) {
+                        rem = rem.substring(0, Math.max(0, rem.length() - IDS_OPTION.length() - 1));
+                    }
+                    if (rem.isEmpty()) {
+                        lap(Metrics.Phase.QUERY);
+                        return taskListReply(out, all, 0, all.size(), ids, "Here are the tasks in your list:",
+                            "Your list is empty.");
+                    }
+                    String[] args = rem.split(" ");
+                    if (args.length > 2) {
+                        return Reply.error("OOPS!!! Use: list [page] [size] [--ids]");
+                    }
+                    int page = parsePositive(args[0], "page");
+                    int size = args.length == 2 ? parsePositive(args[1], "page size") : DEFAULT_PAGE_SIZE;
+                    int pages = Math.max(1, (all.size() + size - 1) / size);
+                    if (page > pages) {
+                        return Reply.error("OOPS!!! Page " + page + " is out of range (1-" + pages + ").");
+                    }
+                    int from = (page - 1) * size;
+                    lap(Metrics.Phase.VALIDATE);
+                    return taskListReply(out, all, from, Math.min(all.size(), from + size), ids,
+                        "Here are the tasks in your list (page " + page + " of " + pages + "):",
+                        "Your list is empty.");
                 }
                 case "todo": {
                     if (rem.isBlank()) {
                         return Reply.error("OOPS!!! The description of a todo cannot be empty.");
                     }
                     Task t = new Todo(rem);
-                    if (taskList.containsDuplicate(t)) {
+                    lap(Metrics.Phase.VALIDATE);
+                    boolean duplicate = taskList.containsDuplicate(t);
+                    lap(Metrics.Phase.DUPLICATE_CHECK);
+                    if (duplicate) {
                         return Reply.error("Duplicate todo: an identical task already exists.");
                     }
                     taskList.add(t);
-                    Storage.save(dataFile, taskList.view());
+                    record(new History.Insert(line, at(taskList.size() - 1), List.of(t)));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.addRecord(t));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok(formatAdded(t, taskList.size()));
                 }
                 case "deadline": {
                     if (rem.isBlank()) {
                         return Reply.error("OOPS!!! The description of a deadline cannot be empty.");
                     }
-                    if (Parser.countToken(rem, " /by ") > 1) {
+                    if (pc.flagCount("by") > 1) {
                         return Reply.error("OOPS!!! Duplicate '/by'. Use: deadline <desc> /by <when>");
                     }
-                    int sep = rem.indexOf(" /by ");
-                    if (sep < 0) {
+                    if (pc.flagCount("by") == 0) {
                         return Reply.error("OOPS!!! Missing '/by' in deadline. Use: deadline <desc> /by <when>");
                     }
-                    String desc = rem.substring(0, sep).trim();
-                    String byRaw = rem.substring(sep + 5).trim();
+                    String desc = pc.description();
+                    String byRaw = pc.flag("by");
                     if (desc.isEmpty() || byRaw.isEmpty()) {
                         return Reply.error("OOPS!!! Use: deadline <desc> /by <when>");
                     }
@@ -115,28 +307,32 @@ public class Quokka {
                     } catch (IllegalArgumentException ex) {
                         return Reply.error("Invalid date for /by: " + ex.getMessage());
                     }
-                    if (taskList.containsDuplicate(t)) {
+                    lap(Metrics.Phase.VALIDATE);
+                    boolean duplicate = taskList.containsDuplicate(t);
+                    lap(Metrics.Phase.DUPLICATE_CHECK);
+                    if (duplicate) {
                         return Reply.error("Duplicate deadline: an identical task already exists.");
                     }
                     taskList.add(t);
-                    Storage.save(dataFile, taskList.view());
+                    record(new History.Insert(line, at(taskList.size() - 1), List.of(t)));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.addRecord(t));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok(formatAdded(t, taskList.size()));
                 }
                 case "event": {
                     if (rem.isBlank()) {
                         return Reply.error("OOPS!!! The description of an event cannot be empty.");
                     }
-                    if (Parser.countToken(rem, " /from ") != 1 || Parser.countToken(rem, " /to ") != 1) {
+                    if (pc.flagCount("from") != 1 || pc.flagCount("to") != 1) {
                         return Reply.error("OOPS!!! Use exactly one '/from' and one '/to': event <desc> /from <start> /to <end>");
                     }
-                    int f = rem.indexOf(" /from ");
-                    int tIdx = rem.indexOf(" /to ");
-                    if (f < 0 || tIdx < 0 || tIdx <= f) {
+                    if (pc.flagPosition("to") < pc.flagPosition("from")) {
                         return Reply.error("OOPS!!! Use: event <desc> /from <start> /to <end>");
                     }
-                    String desc = rem.substring(0, f).trim();
-                    String fromRaw = rem.substring(f + 7, tIdx).trim();
-                    String toRaw = rem.substring(tIdx + 5).trim();
+                    String desc = pc.description();
+                    String fromRaw = pc.flag("from");
+                    String toRaw = pc.flag("to");
                     if (desc.isEmpty() || fromRaw.isEmpty() || toRaw.isEmpty()) {
                         return Reply.error("OOPS!!! Use: event <desc> /from <start> /to <end>");
                     }
@@ -153,31 +349,61 @@ public class Quokka {
                         return Reply.error("Invalid date: " + ex.getMessage());
                     }
 
-                    if (taskList.containsDuplicate(t)) {
+                    lap(Metrics.Phase.VALIDATE);
+                    boolean duplicate = taskList.containsDuplicate(t);
+                    lap(Metrics.Phase.DUPLICATE_CHECK);
+                    if (duplicate) {
                         return Reply.error("Duplicate event: an identical task already exists.");
                     }
                     taskList.add(t);
-                    Storage.save(dataFile, taskList.view());
+                    record(new History.Insert(line, at(taskList.size() - 1), List.of(t)));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.addRecord(t));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok(formatAdded(t, taskList.size()));
                 }
                 case "mark": {
+                    BitSet selected = parseSelection(rem);
+                    if (selected != null) {
+                        return bulkUpdate(Storage.REC_MARK, line, rem, selected);
+                    }
                     int idx0 = parseOneBasedIndex(rem);
-                    Task t = taskList.get(idx0);
-                    t.markAsDone();
-                    Storage.save(dataFile, taskList.view());
+                    lap(Metrics.Phase.VALIDATE);
+                    boolean changed = !taskList.get(idx0).isDone();
+                    Task t = taskList.setDone(idx0, true);
+                    record(new History.Mark(line, changed ? new int[] {t.getId()} : new int[0], true));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.indexRecord(Storage.REC_MARK, idx0));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok("Nice! I've marked this task as done:\n  " + t);
                 }
                 case "unmark": {
+                    BitSet selected = parseSelection(rem);
+                    if (selected != null) {
+                        return bulkUpdate(Storage.REC_UNMARK, line, rem, selected);
+                    }
                     int idx0 = parseOneBasedIndex(rem);
-                    Task t = taskList.get(idx0);
-                    t.markAsNotDone();
-                    Storage.save(dataFile, taskList.view());
+                    lap(Metrics.Phase.VALIDATE);
+                    boolean changed = taskList.get(idx0).isDone();
+                    Task t = taskList.setDone(idx0, false);
+                    record(new History.Mark(line, changed ? new int[] {t.getId()} : new int[0], false));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.indexRecord(Storage.REC_UNMARK, idx0));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok("OK, I've marked this task as not done yet:\n  " + t);
                 }
                 case "delete": {
+                    BitSet selected = parseSelection(rem);
+                    if (selected != null) {
+                        return bulkUpdate(Storage.REC_DELETE, line, rem, selected);
+                    }
                     int idx0 = parseOneBasedIndex(rem);
+                    lap(Metrics.Phase.VALIDATE);
                     Task removed = taskList.removeAt(idx0);
-                    Storage.save(dataFile, taskList.view());
+                    record(new History.Remove(line, at(idx0), List.of(removed)));
+                    lap(Metrics.Phase.MUTATE);
+                    persist(Storage.indexRecord(Storage.REC_DELETE, idx0));
+                    lap(Metrics.Phase.PERSIST);
                     return Reply.ok("Noted. I've removed this task:\n  " + removed
                         + "\nNow you have " + taskList.size() + " tasks in the list.");
                 }
@@ -185,9 +411,71 @@ public class Quokka {
                     if (rem.isBlank()) {
                         return Reply.error("OOPS!!! Provide a keyword to find.");
                     }
-                    List<Task> matches = taskList.find(rem);
-                    return Reply.ok(renderTaskList(matches, "Here are the matching tasks in your list:"));
+                    String keyword = rem;
+                    int limit = Integer.MAX_VALUE;
+                    int opt = rem.lastIndexOf(LIMIT_OPTION);
+                    if (opt >= 0 && (opt == 0 || rem.charAt(opt - 1) == ' ')) {
+                        keyword = rem.substring(0, Math.max(0, opt - 1));
+                        limit = parsePositive(rem.substring(opt + LIMIT_OPTION.length()), "limit");
+                        if (keyword.isEmpty()) {
+                            return Reply.error("OOPS!!! Provide a keyword to find.");
+                        }
+                    }
+                    lap(Metrics.Phase.VALIDATE);
+                    // One more than shown tells whether any matches were left out.
+                    List<Task> matches = taskList.find(keyword, limit == Integer.MAX_VALUE ? limit : limit + 1);
+                    lap(Metrics.Phase.QUERY);
+                    boolean more = matches.size() > limit;
+                    String header = more
+                        ? "Here are the first " + limit + " matching tasks in your list:"
+                        : "Here are the matching tasks in your list:";
+                    return taskListReply(out, matches, 0, more ? limit : matches.size(), header,
+                        "Your list is empty.");
+                }
+                case "due": {
+                    if (rem.isBlank()) {
+                        return Reply.error("OOPS!!! Use: due <date>");
+                    }
+                    java.time.LocalDate day = parseQueryDate(rem);
+                    lap(Metrics.Phase.VALIDATE);
+                    List<Task> due = taskList.dueOn(day);
+                    lap(Metrics.Phase.QUERY);
+                    return taskListReply(out, due, 0, due.size(),
+                        "Here are the tasks on " + quokka.util.Dates.fmt(day) + ":", "Nothing is due on that day.");
                 }
+                case "overdue": {
+                    List<Task> overdue = taskList.overdue(java.time.LocalDate.now());
+                    lap(Metrics.Phase.QUERY);
+                    return taskListReply(out, overdue, 0, overdue.size(), "Here are the overdue deadlines:",
+                        "Nothing is overdue.");
+                }
+                case "between": {
+                    String[] range = pc.flagCount("to") == 1
+                        ? new String[] { pc.description(), pc.flag("to") }
+                        : rem.split(" ");
+                    if (range.length != 2 || range[0].isEmpty() || range[1].isEmpty()) {
+                        return Reply.error("OOPS!!! Use: between <date> <date>");
+                    }
+                    java.time.LocalDate from = parseQueryDate(range[0]);
+                    java.time.LocalDate to = parseQueryDate(range[1]);
+                    if (from.isAfter(to)) {
+                        return Reply.error("OOPS!!! The first date must not be after the second.");
+                    }
+                    lap(Metrics.Phase.VALIDATE);
+                    List<Task> inRange = taskList.between(from, to);
+                    lap(Metrics.Phase.QUERY);
+                    return taskListReply(out, inRange, 0, inRange.size(),
+                        "Here are the tasks between " + quokka.util.Dates.fmt(from) + " and "
+                            + quokka.util.Dates.fmt(to) + ":", "Nothing is scheduled in that range.");
+                }
+                case "undo":
+                    return undoOrRedo(true);
+                case "redo":
+                    return undoOrRedo(false);
+                case "use":
+                    return useWorkspace(rem);
+                case "stats":
+                    return Reply.ok(getMetrics() + "\n" + workspaces.stats());
                 case "bye":
                     return Reply.ok("Bye. Hope to see you again soon!").withExit();
                 default:
@@ -212,25 +500,347 @@ public class Quokka {
         System.out.println(line);
     }
 
-    private static String renderTaskList(List<Task> list, String header) {
-        if (list == null || list.isEmpty()) {
-            return "Your list is empty.";
+    /** Records the time since the previous lap as {@code phase} and starts the next one. */
+    private void lap(Metrics.Phase phase) {
+        long now = System.nanoTime();
+        metrics.recordPhase(phase, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /**
+     * Applies mark, unmark or delete ({@code kind} is the journal record kind) to every selected
+     * task in one pass over the list, writes it once and replies with a summary. Caller holds the lock.
+     */
+    private Reply bulkUpdate(String kind, String line, String selection, BitSet selected) throws DukeException {
+        TaskList taskList = current.tasks;
+        int count = selected.cardinality();
+        lap(Metrics.Phase.VALIDATE);
+        if (count == 0) {
+            return Reply.ok("No tasks match '" + selection + "'.");
+        }
+        BitSet changed = selected;
+        if (kind.equals(Storage.REC_DELETE)) {
+            record(new History.Remove(line, selected, taskList.removeAt(selected)));
+        } else {
+            // Only tasks whose state changes are replaced, journaled and remembered for undo.
+            boolean done = kind.equals(Storage.REC_MARK);
+            List<Task> view = taskList.view();
+            changed = new BitSet();
+            int[] ids = new int[count];
+            int n = 0;
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                Task t = view.get(i);
+                if (t.isDone() != done) {
+                    changed.set(i);
+                    ids[n++] = t.getId();
+                }
+            }
+            if (n == 0) {
+                String those = count == 1 ? "That task is" : "All " + count + " tasks are";
+                return Reply.ok(those + (done ? " already marked as done." : " already not done."));
+            }
+            taskList.setDone(changed, done);
+            record(new History.Mark(line, Arrays.copyOf(ids, n), done));
+            count = n;
+        }
+        lap(Metrics.Phase.MUTATE);
+        if (!changed.isEmpty()) {
+            persist(Storage.indexRecord(kind, changed));
+        }
+        lap(Metrics.Phase.PERSIST);
+        String tasks = count == 1 ? "1 task" : count + " tasks";
+        switch (kind) {
+            case Storage.REC_MARK:
+                return Reply.ok("Nice! I've marked " + tasks + " as done.");
+            case Storage.REC_UNMARK:
+                return Reply.ok("OK, I've marked " + tasks + " as not done yet.");
+            default:
+                return Reply.ok("Noted. I've removed " + tasks + ".\nNow you have " + taskList.size()
+                    + " tasks in the list.");
+        }
+    }
+
+    /**
+     * Reverts the latest change ({@code undo}) or makes the latest undone change again
+     * ({@code redo}), writing it like any other change. Caller holds the lock.
+     */
+    private Reply undoOrRedo(boolean undo) throws DukeException {
+        History.Edit e = undo ? current.history.undo() : current.history.redo();
+        if (e == null) {
+            return Reply.error("OOPS!!! There is nothing to " + (undo ? "undo" : "redo") + ".");
+        }
+        lap(Metrics.Phase.VALIDATE);
+        List<String> records = e.apply(current.tasks);
+        lap(Metrics.Phase.MUTATE);
+        if (!records.isEmpty()) {
+            current.flusher.persist(records);
+        }
+        lap(Metrics.Phase.PERSIST);
+        return Reply.ok((undo ? "Undone: " : "Redone: ") + e.command
+            + "\nNow you have " + current.tasks.size() + " tasks in the list.");
+    }
+
+    /**
+     * Picks up edits another program made to the data file of {@code w}. The edited lines are
+     * applied to the list in place, with its indexes updated task by task, unless this session
+     * changed the same tasks and has not written them to that file yet: then this session's
+     * version is kept, written over the file, and the conflict reported. Changes that do not
+     * overlap are merged. Runs on the watcher thread; returns the report, or null if the file
+     * holds nothing new.
+     */
+    synchronized String reload(Workspace w) {
+        try {
+            Storage.ExternalChange c = Storage.readExternalChange(w.file);
+            if (c == null) {
+                return null;
+            }
+            String file = w.file.getFileName().toString();
+            long[] before = c.previous;
+            List<Task> ours = w.tasks.view();
+            // Range of the file's previous lines that this session has changed since (empty if none).
+            int from = before.length;
+            int end = before.length;
+            boolean pending = !w.flusher.isIdle() || Storage.hasJournal(w.file);
+            if (pending) {
+                int p = 0;
+                while (p < before.length && p < ours.size()
+                        && before[p] == Storage.lineHash(Storage.dataLine(ours.get(p)))) {
+                    p++;
+                }
+                int s = 0;
+                while (s < before.length - p && s < ours.size() - p
+                        && before[before.length - 1 - s] == Storage.lineHash(
+                            Storage.dataLine(ours.get(ours.size() - 1 - s)))) {
+                    s++;
+                }
+                if (p < before.length || p < ours.size()) {
+                    from = p;
+                    end = before.length - s;
+                }
+            }
+            boolean changedHere = from < before.length || ours.size() != before.length;
+            String report;
+            if (changedHere && c.from < end && c.from + c.removed > from) {
+                report = "Warning: " + file + " (" + c.where() + ") was changed by another program while this"
+                    + " session had unsaved changes to the same tasks; kept this session's version.";
+            } else {
+                int shift = changedHere && c.from >= end ? ours.size() - before.length : 0;
+                w.tasks.splice(c.from + shift, c.removed, c.added);
+                w.history.clear();
+                report = "Reloaded " + file + ": " + c.where() + " changed by another program.";
+            }
+            if (pending) {
+                // Journal records and unwritten changes refer to the old file; replace it with the merged list.
+                w.flusher.rewrite();
+            }
+            return report;
+        } catch (DukeException e) {
+            return "Warning: failed to reload " + w.file.getFileName() + ": " + e.getMessage();
+        }
+    }
+
+    /** Watcher callback: reloads {@code w} and passes the report on to the listener. */
+    private void reloadAndReport(Workspace w) {
+        String report = reload(w);
+        if (report != null) {
+            reloadListener.accept(report);
+        }
+    }
+
+    /** Remembers a change for {@code undo}. */
+    private void record(History.Edit e) {
+        current.history.record(e);
+    }
+
+    /** The single 0-based index {@code idx0} as a selection. */
+    private static BitSet at(int idx0) {
+        BitSet b = new BitSet();
+        b.set(idx0);
+        return b;
+    }
+
+    /** Writes (or schedules) a mutation that has already been applied to the task list. */
+    private void persist(String journalRecord) throws DukeException {
+        current.flusher.persist(journalRecord);
+    }
+
+    /**
+     * {@code use} shows the current and loaded workspaces; {@code use <name>} switches to the
+     * named one, loading it on first use. Caller holds the lock.
+     */
+    private Reply useWorkspace(String name) throws DukeException {
+        if (name.isEmpty()) {
+            StringBuilder sb = new StringBuilder("You are using workspace '").append(current.name)
+                .append("' (").append(current.tasks.size()).append(" tasks). Loaded:");
+            for (Workspace w : workspaces.loaded()) {
+                sb.append(' ').append(w.name);
+            }
+            return Reply.ok(sb.toString());
+        }
+        if (!isWorkspaceName(name)) {
+            throw new DukeException("OOPS!!! Workspace names are 1-" + MAX_WORKSPACE_NAME
+                + " letters, digits, '-' or '_'.");
+        }
+        // One spelling per data file, also on case-insensitive file systems.
+        String key = name.toLowerCase(java.util.Locale.ROOT);
+        lap(Metrics.Phase.VALIDATE);
+        current = workspaces.get(key);
+        lap(Metrics.Phase.QUERY);
+        return Reply.ok("Now using workspace '" + key + "' (" + current.tasks.size() + " tasks).");
+    }
+
+    private static boolean isWorkspaceName(String name) {
+        if (name.isEmpty() || name.length() > MAX_WORKSPACE_NAME) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean ok = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_';
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Data file of a workspace: the file given to the constructor for the default one,
+     * otherwise a sibling named after the workspace, e.g. {@code data/tasks-work.txt}.
+     */
+    private Path workspaceFile(String name) {
+        if (name.equals(DEFAULT_WORKSPACE)) {
+            return dataFile;
+        }
+        String fileName = dataFile.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String ext = dot > 0 ? fileName.substring(dot) : "";
+        return dataFile.resolveSibling(stem + "-" + name + ext);
+    }
+
+    /**
+     * Reply listing {@code list[from, to)}, numbered from {@code from + 1}. With a non-null
+     * {@code out} the rows are written there one at a time (and the reply is empty);
+     * otherwise they are collected into the reply text.
+     */
+    private static Reply taskListReply(Appendable out, List<Task> list, int from, int to, String header,
+            String emptyMessage) throws IOException {
+        return taskListReply(out, list, from, to, false, header, emptyMessage);
+    }
+
+    /** Like {@link #taskListReply(Appendable, List, int, int, String, String)}, optionally ending rows with the id. */
+    private static Reply taskListReply(Appendable out, List<Task> list, int from, int to, boolean ids, String header,
+            String emptyMessage) throws IOException {
+        if (list.isEmpty()) {
+            return Reply.ok(emptyMessage);
+        }
+        Appendable target = out != null ? out : new StringBuilder(header.length() + (to - from) * 48);
+        target.append(header);
+        for (int i = from; i < to; i++) {
+            Task t = list.get(i);
+            target.append('\n').append(String.valueOf(i + 1)).append('.').append(t.toString());
+            if (ids) {
+                target.append(" (#").append(String.valueOf(t.getId())).append(')');
+            }
+        }
+        if (out != null) {
+            out.append('\n');
+            return Reply.ok("");
         }
-        StringBuilder sb = new StringBuilder(header).append('\n');
-        for (int i = 0; i < list.size(); i++) {
-            sb.append(i + 1).append('.').append(list.get(i)).append('\n');
+        return Reply.ok(target.toString());
+    }
+
+    /** Parses a positive int argument such as a page number, naming it in the error. */
+    private static int parsePositive(String raw, String what) throws DukeException {
+        try {
+            int n = Integer.parseInt(raw.trim());
+            if (n >= 1) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error below
         }
-        return sb.toString().trim();
+        throw new DukeException("OOPS!!! The " + what + " must be a positive number.");
     }
 
     private static String formatAdded(Task t, int newSize) {
         return "Got it. I've added this task:\n  " + t + "\nNow you have " + newSize + " tasks in the list.";
     }
 
+    /** Parses a date argument of a query command, reporting bad input as a DukeException. */
+    private static java.time.LocalDate parseQueryDate(String raw) throws DukeException {
+        try {
+            return quokka.util.Dates.parseStrictDate(raw);
+        } catch (IllegalArgumentException ex) {
+            throw new DukeException("Invalid date: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Parses a selection of several tasks into 0-based indices: {@code all}, {@code done},
+     * {@code undone}, or a comma-separated list of task numbers, {@code #<id>}s and ranges
+     * such as {@code 3,7,10-12}. Returns null if {@code sel} names a single task.
+     */
+    private BitSet parseSelection(String sel) throws DukeException {
+        List<Task> view = current.tasks.view();
+        BitSet out = new BitSet();
+        switch (sel.trim().toLowerCase()) {
+            case SELECT_ALL:
+                out.set(0, view.size());
+                return out;
+            case SELECT_DONE:
+            case SELECT_UNDONE: {
+                boolean done = sel.trim().equalsIgnoreCase(SELECT_DONE);
+                int i = 0;
+                for (Task t : view) {
+                    if (t.isDone() == done) {
+                        out.set(i);
+                    }
+                    i++;
+                }
+                return out;
+            }
+            default:
+                break;
+        }
+        if (sel.indexOf(',') < 0 && sel.indexOf('-', 1) < 0) {
+            return null;
+        }
+        for (String part : sel.split(",")) {
+            int dash = part.indexOf('-', 1);
+            if (dash < 0) {
+                out.set(parseOneBasedIndex(part));
+                continue;
+            }
+            int from = parseOneBasedIndex(part.substring(0, dash));
+            int to = parseOneBasedIndex(part.substring(dash + 1));
+            if (from > to) {
+                throw new DukeException("Please write ranges from low to high, e.g. 3-7.");
+            }
+            out.set(from, to + 1);
+        }
+        return out;
+    }
+
+    /** Parses a 1-based task number, or a task id written as {@code #<id>}, into a 0-based index. */
     private int parseOneBasedIndex(String numStr) throws DukeException {
+        TaskList taskList = current.tasks;
         if (numStr == null || numStr.trim().isEmpty()) {
             throw new DukeException("Please provide a task number.");
         }
+        if (numStr.trim().charAt(0) == '#') {
+            String raw = numStr.trim().substring(1);
+            try {
+                int idx0 = taskList.indexOfId(Integer.parseInt(raw));
+                if (idx0 < 0) {
+                    throw new DukeException("There is no task #" + raw + ".");
+                }
+                return idx0;
+            } catch (NumberFormatException e) {
+                throw new DukeException("Please provide a valid task id, e.g. #12.");
+            }
+        }
         try {
             int n = Integer.parseInt(numStr.trim());
             if (n < 1 || n > taskList.size()) {
@@ -0,0 +1,178 @@
+package quokka;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless server that lets several clients share one task list over a local TCP line protocol.
+ * <p>
+ * Each request is one command line, exactly as typed in the CLI. Each response is a status
+ * line {@code OK <n>}, {@code ERR <n>} or {@code BYE <n>} followed by the {@code n} lines of
+ * the reply text; after {@code BYE} the server closes that connection. Every connection gets
+ * its own thread (a virtual thread on Java 21+), but all commands are handed to one
+ * {@link CommandExecutor}, so mutations and their persistence are applied by a single writer
+ * in arrival order. Only the loopback interface is bound.
+ */
+public class QuokkaServer implements Closeable {
+    public static final int DEFAULT_PORT = 4567;
+
+    private final CommandExecutor commands;
+    private final ServerSocket serverSocket;
+    private final ThreadFactory connectionThreads = connectionThreadFactory();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param quokka the shared bot; the server takes ownership and closes it
+     * @param port TCP port on 127.0.0.1, or 0 for any free port
+     */
+    public QuokkaServer(Quokka quokka, int port) throws IOException {
+        this.commands = new CommandExecutor(quokka);
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+    }
+
+    /** Usage: {@code QuokkaServer [--port N] [--file path]}. Runs until the process is stopped. */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String file = "data/tasks.txt";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--file")) {
+                file = args[i + 1];
+            }
+        }
+        // Many clients: append to the journal and group writes instead of rewriting per command.
+        Quokka quokka = new Quokka(file, StorageOptions.defaults().withJournal(true).withDurability(Durability.GROUP)
+            .withHotReload(true).withStoreFromProperties());
+        // Clients only see replies to their own commands; reloads are logged on the server console.
+        quokka.setReloadListener(report -> (report.startsWith("Warning") ? System.err : System.out).println(report));
+        QuokkaServer server = new QuokkaServer(quokka, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Quokka server on 127.0.0.1:" + server.getPort() + ", serving " + file);
+        server.run();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Accept connections on the calling thread until {@link #close()}. */
+    public void run() {
+        while (!closed) {
+            try {
+                Socket s = serverSocket.accept();
+                s.setTcpNoDelay(true);
+                clients.add(s);
+                connectionThreads.newThread(() -> serve(s)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Warning: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Accept connections on a background thread. */
+    public void start() {
+        Thread t = new Thread(this::run, "quokka-server");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Stop accepting, drop open connections, then drain queued commands and close the bot. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        for (Socket s : clients) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+        commands.close();
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Reply r = commands.submit(line).join();
+                writeReply(out, r);
+                // Pipelined requests are answered in one write.
+                if (r.exit || !in.ready()) {
+                    out.flush();
+                }
+                if (r.exit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to answer.
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    static void writeReply(Writer out, Reply r) throws IOException {
+        String status = r.exit ? "BYE" : r.error ? "ERR" : "OK";
+        int lines = 0;
+        if (!r.message.isEmpty()) {
+            lines = 1;
+            for (int i = 0; i < r.message.length(); i++) {
+                if (r.message.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+        }
+        out.write(status + " " + lines + "\n");
+        if (lines > 0) {
+            out.write(r.message);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * One virtual thread per connection where available (Java 21+). Looked up reflectively
+     * because the build targets Java 17; falls back to daemon platform threads.
+     */
+    static ThreadFactory connectionThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "quokka-client-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return r -> {
+                Thread t = new Thread(r, "quokka-client-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package quokka;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Common structure of the immutable, versioned task stores ({@link TaskVector}, {@link TaskColumns},
+ * {@link TaskPages}).
+ * <p>
+ * Every task gets a physical slot when it is appended. Slots never move until {@link #compact},
+ * so {@link TaskList} can map ids to slots. Slots are grouped into leaves of {@value #LEAF}
+ * (the payload, supplied by the subclass) and leaves into branches of {@value #LEAF}. Each
+ * branch keeps a bit mask of live slots per leaf; the root keeps the running total of live
+ * tasks per branch. Deleting a task only clears its bit (a tombstone), so replace and remove
+ * copy one leaf, one branch and the root arrays, i.e. O(n / 4096) instead of the whole
+ * list, and positions are found by counting bits.
+ * <p>
+ * Appends are O(1) amortized because versions form a single line (there is one writer):
+ * a new version fills spare slots, sets live bits and raises the last running total in
+ * arrays it shares with its predecessor. Older versions only look up positions below their
+ * own size, which all come before the new slot, so those changes never alter their answers.
+ * Appending to anything but the latest version would break that, so {@link TaskList} only
+ * ever changes its current version.
+ *
+ * @param <L> leaf type holding {@value #LEAF} slots
+ */
+abstract class SlotStore<L> extends AbstractList<Task> implements TaskStore {
+    static final int LEAF = 64;
+    /** Slots per branch. */
+    static final int SPAN = LEAF * LEAF;
+
+    /** Up to {@value #LEAF} leaves and the live slots of each. */
+    static final class Branch {
+        final Object[] leaves;
+        final long[] live;
+
+        Branch(Object[] leaves, long[] live) {
+            this.leaves = leaves;
+            this.live = live;
+        }
+    }
+
+    final Branch[] branches;
+    /** {@code totals[b]}: live tasks in branches 0..b. */
+    final int[] totals;
+    final int branchCount;
+    /** Slots handed out so far, live or not. */
+    final int slots;
+    final int size;
+
+    SlotStore(Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        this.branches = branches;
+        this.totals = totals;
+        this.branchCount = branchCount;
+        this.slots = slots;
+        this.size = size;
+    }
+
+    /** A new, empty leaf. */
+    abstract L newLeaf();
+
+    /** A copy of {@code leaf} that the new version may change. */
+    abstract L copyLeaf(L leaf);
+
+    /** Stores {@code t} in slot {@code i} of {@code leaf}. */
+    abstract void setSlot(L leaf, int i, Task t);
+
+    /** The task in slot {@code i} of {@code leaf}. */
+    abstract Task getSlot(L leaf, int i);
+
+    /** Id of the task in slot {@code i} of {@code leaf}. */
+    abstract int idInSlot(L leaf, int i);
+
+    /** Done status of the task in slot {@code i} of {@code leaf}. */
+    abstract boolean doneInSlot(L leaf, int i);
+
+    /** Copies slot {@code from} of {@code src} to slot {@code to} of {@code dst}. */
+    abstract void copySlot(L src, int from, L dst, int to);
+
+    /**
+     * The leaf to keep after slot {@code i} of {@code leaf} was deleted: a copy without the
+     * task, or the leaf itself if a dead slot holds nothing worth releasing.
+     */
+    abstract L clearSlot(L leaf, int i);
+
+    /** A store of the same kind (sharing any per-store state) with the given structure. */
+    abstract SlotStore<L> withStructure(Branch[] branches, int[] totals, int branchCount, int slots, int size);
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        int slot = slotAt(index);
+        return getSlot(leaf(slot), slot & (LEAF - 1));
+    }
+
+    @Override
+    public int idAt(int index) {
+        int slot = slotAt(index);
+        return idInSlot(leaf(slot), slot & (LEAF - 1));
+    }
+
+    @Override
+    public int slotCount() {
+        return slots;
+    }
+
+    @Override
+    public Task getSlot(int slot) {
+        checkLive(slot);
+        return getSlot(leaf(slot), slot & (LEAF - 1));
+    }
+
+    @Override
+    public boolean isDoneInSlot(int slot) {
+        checkLive(slot);
+        return doneInSlot(leaf(slot), slot & (LEAF - 1));
+    }
+
+    @Override
+    public int positionOf(int slot) {
+        checkLive(slot);
+        int b = slot / SPAN;
+        int j = (slot / LEAF) % LEAF;
+        long[] live = branches[b].live;
+        int pos = b == 0 ? 0 : totals[b - 1];
+        for (int k = 0; k < j; k++) {
+            pos += Long.bitCount(live[k]);
+        }
+        return pos + Long.bitCount(live[j] & ((1L << (slot & (LEAF - 1))) - 1));
+    }
+
+    @Override
+    public SlotStore<L> append(Task t) {
+        Branch[] bs = branches;
+        int[] tot = totals;
+        int count = branchCount;
+        int slot = slots;
+        int b = slot / SPAN;
+        if (b == count) {
+            if (count == bs.length) {
+                bs = Arrays.copyOf(bs, count * 2);
+                tot = Arrays.copyOf(tot, count * 2);
+            }
+            bs[b] = new Branch(new Object[LEAF], new long[LEAF]);
+            tot[b] = b == 0 ? 0 : tot[b - 1];
+            count++;
+        }
+        Branch branch = bs[b];
+        int j = (slot / LEAF) % LEAF;
+        if (branch.leaves[j] == null) {
+            branch.leaves[j] = newLeaf();
+        }
+        int i = slot & (LEAF - 1);
+        setSlot(leafAt(branch, j), i, t);
+        branch.live[j] |= 1L << i;
+        tot[b]++;
+        return withStructure(bs, tot, count, slot + 1, size + 1);
+    }
+
+    @Override
+    public SlotStore<L> replace(int index, Task t) {
+        int slot = slotAt(index);
+        int b = slot / SPAN;
+        int j = (slot / LEAF) % LEAF;
+        Branch old = branches[b];
+        L leaf = copyLeaf(leafAt(old, j));
+        setSlot(leaf, slot & (LEAF - 1), t);
+        Object[] leaves = old.leaves.clone();
+        leaves[j] = leaf;
+        Branch[] bs = branches.clone();
+        bs[b] = new Branch(leaves, old.live);
+        return withStructure(bs, totals, branchCount, slots, size);
+    }
+
+    @Override
+    public SlotStore<L> removeAt(int index) {
+        int slot = slotAt(index);
+        int b = slot / SPAN;
+        int j = (slot / LEAF) % LEAF;
+        int i = slot & (LEAF - 1);
+        Branch old = branches[b];
+        Object[] leaves = old.leaves.clone();
+        leaves[j] = clearSlot(leafAt(old, j), i);
+        long[] live = old.live.clone();
+        live[j] &= ~(1L << i);
+        Branch[] bs = branches.clone();
+        bs[b] = new Branch(leaves, live);
+        int[] tot = totals.clone();
+        for (int k = b; k < branchCount; k++) {
+            tot[k]--;
+        }
+        return withStructure(bs, tot, branchCount, slots, size - 1);
+    }
+
+    /**
+     * Replaces the tasks at the positions in {@code at} in one pass: branches and leaves
+     * without a selected position are skipped by their counts, and every touched leaf and
+     * branch is copied once however many of its tasks change.
+     */
+    @Override
+    public SlotStore<L> replaceAt(BitSet at, UnaryOperator<Task> f) {
+        Branch[] bs = null;
+        int pos = 0;
+        for (int b = 0; b < branchCount; b++) {
+            int next = at.nextSetBit(pos);
+            if (next < 0 || next >= size) {
+                break;
+            }
+            if (next >= totals[b]) {
+                pos = totals[b];
+                continue;
+            }
+            Branch src = branches[b];
+            Object[] leaves = src.leaves.clone();
+            for (int j = 0; j < LEAF; j++) {
+                long bits = src.live[j];
+                int count = Long.bitCount(bits);
+                next = at.nextSetBit(pos);
+                if (next < 0 || next >= pos + count) {
+                    pos += count;
+                    continue;
+                }
+                L leaf = copyLeaf(leafAt(src, j));
+                while (bits != 0) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (at.get(pos)) {
+                        setSlot(leaf, i, f.apply(getSlot(leaf, i)));
+                    }
+                    pos++;
+                }
+                leaves[j] = leaf;
+            }
+            if (bs == null) {
+                bs = branches.clone();
+            }
+            bs[b] = new Branch(leaves, src.live);
+        }
+        return bs == null ? this : withStructure(bs, totals, branchCount, slots, size);
+    }
+
+    /** Drops the tasks at the positions in {@code at} while compacting, so the result has no tombstones. */
+    @Override
+    public SlotStore<L> removeAt(BitSet at) {
+        return rebuild(at, new BitSet(), List.of());
+    }
+
+    /** Merges {@code items} in while compacting, so the result has no tombstones. */
+    @Override
+    public SlotStore<L> insertAt(BitSet at, List<Task> items) {
+        return rebuild(new BitSet(), at, items);
+    }
+
+    /** Replaces a range of tasks while compacting, so the result has no tombstones. */
+    @Override
+    public SlotStore<L> splice(int from, int count, List<Task> items) {
+        BitSet drop = new BitSet();
+        drop.set(from, from + count);
+        BitSet insert = new BitSet();
+        insert.set(from, from + items.size());
+        return rebuild(drop, insert, items);
+    }
+
+    /** Same tasks in order without tombstones; slot {@code i} of the result holds position {@code i}. */
+    @Override
+    public SlotStore<L> compact() {
+        return rebuild(new BitSet(), new BitSet(), List.of());
+    }
+
+    /**
+     * The tasks at positions not in {@code drop}, with {@code items} placed in order at the
+     * positions in {@code insert} of the result, densely packed from slot 0.
+     */
+    private SlotStore<L> rebuild(BitSet drop, BitSet insert, List<Task> items) {
+        int total = size - drop.get(0, size).cardinality() + items.size();
+        int count = Math.max(1, (total + SPAN - 1) / SPAN);
+        Branch[] bs = new Branch[count];
+        int[] tot = new int[count];
+        for (int b = 0; b < count; b++) {
+            bs[b] = new Branch(new Object[LEAF], new long[LEAF]);
+        }
+        int pos = 0;
+        int to = 0;
+        int k = 0;
+        for (int b = 0; b < branchCount; b++) {
+            Branch src = branches[b];
+            for (int j = 0; j < LEAF; j++) {
+                long bits = src.live[j];
+                while (bits != 0) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (drop.get(pos++)) {
+                        continue;
+                    }
+                    while (insert.get(to)) {
+                        setSlot(claim(bs, to), to & (LEAF - 1), items.get(k++));
+                        to++;
+                    }
+                    copySlot(leafAt(src, j), i, claim(bs, to), to & (LEAF - 1));
+                    to++;
+                }
+            }
+        }
+        while (k < items.size()) {
+            setSlot(claim(bs, to), to & (LEAF - 1), items.get(k++));
+            to++;
+        }
+        for (int b = 0; b < count; b++) {
+            tot[b] = Math.min(total, (b + 1) * SPAN);
+        }
+        return withStructure(bs, tot, total == 0 ? 0 : count, total, total);
+    }
+
+    /** Marks slot {@code slot} of a store being built live and returns its leaf. */
+    private L claim(Branch[] bs, int slot) {
+        Branch dst = bs[slot / SPAN];
+        int j = (slot / LEAF) % LEAF;
+        if (dst.leaves[j] == null) {
+            dst.leaves[j] = newLeaf();
+        }
+        dst.live[j] |= 1L << (slot & (LEAF - 1));
+        return leafAt(dst, j);
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int b;
+            private int j;
+            private long bits = branchCount == 0 ? 0 : branches[0].live[0];
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Task next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                while (bits == 0) {
+                    if (++j == LEAF) {
+                        j = 0;
+                        b++;
+                    }
+                    bits = branches[b].live[j];
+                }
+                int i = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                remaining--;
+                return getSlot(leafAt(branches[b], j), i);
+            }
+        };
+    }
+
+    /** Physical slot of the task at {@code index}. */
+    final int slotAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int lo = 0;
+        int hi = branchCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (totals[mid] > index) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        int rest = lo == 0 ? index : index - totals[lo - 1];
+        long[] live = branches[lo].live;
+        int j = 0;
+        int c;
+        while (rest >= (c = Long.bitCount(live[j]))) {
+            rest -= c;
+            j++;
+        }
+        long bits = live[j];
+        for (int k = 0; k < rest; k++) {
+            bits &= bits - 1;
+        }
+        return lo * SPAN + j * LEAF + Long.numberOfTrailingZeros(bits);
+    }
+
+    @SuppressWarnings("unchecked")
+    final L leafAt(Branch branch, int j) {
+        return (L) branch.leaves[j];
+    }
+
+    private L leaf(int slot) {
+        return leafAt(branches[slot / SPAN], (slot / LEAF) % LEAF);
+    }
+
+    private void checkLive(int slot) {
+        boolean live = slot >= 0 && slot < slots
+            && (branches[slot / SPAN].live[(slot / LEAF) % LEAF] & (1L << (slot & (LEAF - 1)))) != 0;
+        if (!live) {
+            throw new IndexOutOfBoundsException("No task in slot " + slot);
+        }
+    }
+}
@@ -1,72 +1,478 @@
 /**
  * Persists tasks to a human-editable text file and loads them on startup.
  * Tolerates legacy formats and corrupted lines where possible.
+ * <p>
+ * In journal mode, mutations are appended as small records to a sibling
+ * {@code <file>.journal} and replayed on top of the snapshot by {@link #load}.
+ * Once the journal grows past {@link #JOURNAL_COMPACT_BYTES} it is rotated to
+ * {@code <file>.journal.old} and folded into a fresh snapshot in the background.
  */
 package quokka;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class Storage {
 
-    /** Split regex that tolerates spaces around the '|' delimiter. */
-    private static final String SPLIT = "\\s*\\|\\s*";
+    /** Journal size after which it is compacted into a fresh snapshot. */
+    public static final long JOURNAL_COMPACT_BYTES = 1L << 20;
+
+    /*
+     * Journal record kinds: "ADD | <data line>", "MARK | <idx0s>", "UNMARK | <idx0s>", "DELETE | <idx0s>",
+     * where <idx0s> is one 0-based index or a comma-separated list of indices and ranges ("0-499,702"),
+     * and "INSERT | <idx0> | <data line>", which puts a task back at a position (undo of a delete).
+     */
+    /** Prefix of the optional id field that starts a data line, e.g. {@code "#12 | T | 0 | read book"}. */
+    static final char ID_PREFIX = '#';
+    static final String REC_ADD = "ADD";
+    static final String REC_MARK = "MARK";
+    static final String REC_UNMARK = "UNMARK";
+    static final String REC_DELETE = "DELETE";
+    static final String REC_INSERT = "INSERT";
+    /** Trailer of a rotated journal: size and mtime of the snapshot it applies to. */
+    private static final String REC_BASE = "BASE";
+
+    /** Data files whose rotated journal is currently being folded into a snapshot. */
+    private static final Set<Path> COMPACTING = ConcurrentHashMap.newKeySet();
+
+    /** What watched data files held when Storage last loaded or wrote them; see {@link #track}. */
+    private static final Map<Path, Tracked> TRACKED = new ConcurrentHashMap<>();
+
+    /** Quiet time after a change event before a watcher reports it, so a burst of writes is reported once. */
+    private static final long WATCH_SETTLE_MS = 50;
+
+    /** Text files at least this large are parsed in parallel chunks; see {@link #loadChunked}. */
+    static final long PARALLEL_LOAD_BYTES = Long.getLong("quokka.parallelLoadBytes", 4L << 20);
+
+    /** Smallest chunk worth a task of its own in a parallel load. */
+    private static final long MIN_CHUNK_BYTES = 16 * 1024;
+
+    /** Bytes written to snapshots, binary mirrors and journals since startup, across all files. */
+    private static final AtomicLong BYTES_WRITTEN = new AtomicLong();
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quokka-compactor");
+        t.setDaemon(true);
+        return t;
+    });
 
     private Storage() {}
 
-    /** Save all tasks to file atomically (write to temp, then move). */
+    /** Save all tasks to file atomically (write to temp, then move). Any journal is folded in and removed. */
     public static void save(Path file, List<Task> tasks) throws DukeException {
+        save(file, tasks, StorageOptions.defaults());
+    }
+
+    /**
+     * Like {@link #save(Path, List)}, but forces the file to stable storage when the options ask
+     * for it and also writes the binary mirror if enabled.
+     */
+    public static void save(Path file, List<Task> tasks, StorageOptions options) throws DukeException {
+        awaitCompaction(file);
+        writeSnapshot(file, tasks, options);
+        try {
+            Files.deleteIfExists(journalPath(file));
+            Files.deleteIfExists(rotatedJournalPath(file));
+        } catch (IOException e) {
+            throw new DukeException("Unable to save data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for a background compaction of {@code file}, so that the older snapshot it is
+     * writing cannot replace a newer one written by {@link #save}.
+     */
+    private static void awaitCompaction(Path file) {
+        if (!COMPACTING.contains(file.toAbsolutePath().normalize())) {
+            return;
+        }
+        try {
+            COMPACTOR.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Total bytes this process has written through Storage (snapshots, mirrors and journals). */
+    public static long bytesWritten() {
+        return BYTES_WRITTEN.get();
+    }
+
+    /** Record builder for an added task. */
+    static String addRecord(Task t) {
+        return REC_ADD + " | " + dataLine(t);
+    }
+
+    /** The line saved for {@code t}: its data string, preceded by its id once it has one. */
+    static String dataLine(Task t) {
+        return t.getId() > 0 ? ID_PREFIX + Integer.toString(t.getId()) + " | " + t.toDataString() : t.toDataString();
+    }
+
+    /** Record builder for mark/unmark/delete of the task at a 0-based index. */
+    static String indexRecord(String kind, int idx0) {
+        return kind + " | " + idx0;
+    }
+
+    /** Record builder for a task put back at a 0-based index. */
+    static String insertRecord(int idx0, Task t) {
+        return REC_INSERT + " | " + idx0 + " | " + dataLine(t);
+    }
+
+    /** Record builder for mark/unmark/delete of several tasks at once; runs are written as ranges. */
+    static String indexRecord(String kind, BitSet idx0s) {
+        StringBuilder sb = new StringBuilder(kind).append(" |");
+        char sep = ' ';
+        int i = idx0s.nextSetBit(0);
+        while (i >= 0) {
+            int end = idx0s.nextClearBit(i);
+            sb.append(sep).append(i);
+            if (end - i > 1) {
+                sb.append('-').append(end - 1);
+            }
+            sep = ',';
+            i = idx0s.nextSetBit(end);
+        }
+        return sb.toString();
+    }
+
+    /** Parses the argument of an index record; see {@link #indexRecord(String, BitSet)}. */
+    private static BitSet parseIndices(String arg, int size) {
+        BitSet out = new BitSet();
+        for (String part : arg.split(",")) {
+            part = part.trim();
+            int dash = part.indexOf('-', 1);
+            int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash).trim());
+            int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+            if (from < 0 || to < from || to >= size) {
+                throw new IndexOutOfBoundsException("Index " + part + " out of bounds for length " + size);
+            }
+            out.set(from, to + 1);
+        }
+        return out;
+    }
+
+    /**
+     * Append one mutation record to the journal of {@code file}. When the journal
+     * passes {@link #JOURNAL_COMPACT_BYTES}, it is rotated and a snapshot of
+     * {@code tasks} (which must already reflect the record) is written in the background.
+     */
+    public static void appendJournal(Path file, String record, List<Task> tasks) throws DukeException {
+        appendJournal(file, record, tasks, StorageOptions.defaults());
+    }
+
+    /** Like {@link #appendJournal(Path, String, List)}, compacting with the given options. */
+    public static void appendJournal(Path file, String record, List<Task> tasks, StorageOptions options)
+            throws DukeException {
+        appendJournal(file, List.of(record), tasks, options);
+    }
+
+    /** Like {@link #appendJournal(Path, String, List, StorageOptions)} for several records written at once. */
+    static void appendJournal(Path file, List<String> records, List<Task> tasks, StorageOptions options)
+            throws DukeException {
+        long size = appendJournal(file, records, options.fsync());
+        if (size >= JOURNAL_COMPACT_BYTES) {
+            compactInBackground(file, tasks, options);
+        }
+    }
+
+    /**
+     * Append a batch of records to the journal in one write, optionally followed by an fsync.
+     *
+     * @return journal size in bytes after the write
+     */
+    static long appendJournal(Path file, List<String> records, boolean fsync) throws DukeException {
+        StringBuilder sb = new StringBuilder();
+        for (String r : records) {
+            sb.append(r).append(System.lineSeparator());
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(sb));
         try {
             Path parent = file.getParent();
             if (parent != null && !Files.exists(parent)) {
                 Files.createDirectories(parent);
             }
-
-            Path tmp = Files.createTempFile(parent != null ? parent : file.getParent(), "quokka-", ".tmp");
-            try (BufferedWriter bw = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
-                for (Task t : tasks) {
-                    bw.write(t.toDataString());
-                    bw.newLine();
+            try (FileChannel ch = FileChannel.open(journalPath(file),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                BYTES_WRITTEN.addAndGet(bytes.remaining());
+                while (bytes.hasRemaining()) {
+                    ch.write(bytes);
                 }
+                if (fsync) {
+                    ch.force(false);
+                }
+                return ch.size();
             }
-            // Try atomic move; if not supported, fall back to replace.
+        } catch (IOException e) {
+            throw new DukeException("Unable to write journal: " + e.getMessage());
+        }
+    }
+
+    /** Current journal size in bytes (0 if there is none). */
+    static long journalSize(Path file) {
+        try {
+            Path journal = journalPath(file);
+            return Files.exists(journal) ? Files.size(journal) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Location of the append-only journal for a data file. */
+    static Path journalPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".journal");
+    }
+
+    /** Location of a journal that has been rotated out and awaits compaction. */
+    static Path rotatedJournalPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".journal.old");
+    }
+
+    /**
+     * Rotate the journal and fold it into a snapshot off the caller's thread.
+     * Skipped while a previous compaction of the same file is still running.
+     */
+    static void compactInBackground(Path file, List<Task> tasks, StorageOptions options) throws DukeException {
+        Path key = file.toAbsolutePath().normalize();
+        if (!COMPACTING.add(key)) {
+            return;
+        }
+        List<Task> snapshot = TaskList.immutableCopy(tasks);
+        Path rotated = rotatedJournalPath(file);
+        try {
+            String base = REC_BASE + " | " + snapshotSignature(file);
+            Files.writeString(journalPath(file), base + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+            Files.move(journalPath(file), rotated, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            COMPACTING.remove(key);
+            throw new DukeException("Unable to rotate journal: " + e.getMessage());
+        }
+        COMPACTOR.execute(() -> {
             try {
-                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
-            } catch (AtomicMoveNotSupportedException e) {
-                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                writeSnapshot(file, snapshot, options);
+                Files.deleteIfExists(rotated);
+            } catch (DukeException | IOException e) {
+                // Leave the rotated journal in place; load() replays it against the old snapshot.
+                System.err.println("Warning: journal compaction failed: " + e.getMessage());
+            } finally {
+                COMPACTING.remove(key);
             }
-        } catch (IOException e) {
-            throw new DukeException("Unable to save data: " + e.getMessage());
+        });
+    }
+
+    /** Best-effort fsync of a directory so a rename survives a crash; not supported on every platform. */
+    private static void forceDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. Windows cannot open directories as channels; the file itself is already forced.
         }
     }
 
-    /** Load tasks from file; creates the file if absent. Corrupted lines are skipped with warnings. */
-    public static void load(Path file, List<Task> out) throws DukeException {
+    /** Block until queued background compactions have finished. */
+    static void awaitCompaction() {
+        try {
+            COMPACTOR.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            // The no-op task cannot fail.
+        }
+    }
+
+    /** Size and mtime of the snapshot file, used to tell whether a rotated journal was folded in. */
+    private static String snapshotSignature(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return "0 | 0";
+        }
+        FileTime mtime = Files.getLastModifiedTime(file);
+        return Files.size(file) + " | " + mtime.toMillis();
+    }
+
+    /** Replaces {@code file} with {@code tmp}, atomically where the file system supports it. */
+    private static void moveIntoPlace(Path tmp, Path file) throws IOException {
+        // Try atomic move; if not supported, fall back to replace.
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Write the snapshot file (and binary mirror, if enabled) atomically, leaving journals untouched. */
+    private static void writeSnapshot(Path file, List<Task> tasks, StorageOptions options) throws DukeException {
+        boolean fsync = options.fsync();
         try {
             Path parent = file.getParent();
             if (parent != null && !Files.exists(parent)) {
                 Files.createDirectories(parent);
             }
-            if (!Files.exists(file)) {
-                Files.createFile(file);
-                return;
+
+            Tracked tracked = TRACKED.get(file.toAbsolutePath().normalize());
+            long[] hashes = tracked == null ? null : new long[tasks.size()];
+            Path tmp = Files.createTempFile(parent != null ? parent : file.getParent(), "quokka-", ".tmp");
+            TaskPages pages = tasks instanceof TaskPages && tracked == null ? (TaskPages) tasks : null;
+            long[] offsets = null;
+            int[] ids = null;
+            BitSet done = new BitSet();
+            if (pages != null) {
+                offsets = new long[pages.size() + 1];
+                ids = new int[pages.size()];
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                    pages.writeLines(out, offsets, ids, done);
+                }
+            } else {
+                try (BufferedWriter bw = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    int i = 0;
+                    for (Task t : tasks) {
+                        String line = dataLine(t);
+                        bw.write(line);
+                        bw.newLine();
+                        if (hashes != null) {
+                            hashes[i++] = lineHash(line);
+                        }
+                    }
+                }
             }
-            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
-            int lineNo = 0;
-            for (String raw : lines) {
-                lineNo++;
-                String line = stripBom(raw).trim();
-                if (line.isEmpty()) continue;
-                try {
-                    Task t = parseLine(line);
-                    out.add(t);
-                } catch (Exception ex) {
-                    System.err.println("Warning: skipped corrupted line " + lineNo + ": \"" + raw + "\" (" + ex.getMessage() + ")");
+            BYTES_WRITTEN.addAndGet(Files.size(tmp));
+            if (fsync) {
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ch.force(true);
+                }
+            }
+            if (pages != null) {
+                // Opened before the move, so it reads exactly what was written even if the file is replaced again.
+                PagedFile saved = new PagedFile(tmp, offsets, ids, ids.length, null, done,
+                    PagedFile.CACHE_TASKS / PagedFile.PAGE);
+                moveIntoPlace(tmp, file);
+                pages.saved(saved);
+            } else if (tracked == null) {
+                moveIntoPlace(tmp, file);
+            } else {
+                // Swap file and remembered contents together, so a watcher never mistakes this write for an edit.
+                synchronized (tracked) {
+                    moveIntoPlace(tmp, file);
+                    tracked.hashes = hashes;
+                    tracked.signature = snapshotSignature(file);
+                }
+            }
+            if (fsync) {
+                forceDirectory(file.toAbsolutePath().getParent());
+            }
+            if (options.binarySnapshot) {
+                BinarySnapshot.write(file, tasks);
+                BYTES_WRITTEN.addAndGet(Files.size(BinarySnapshot.pathFor(file)));
+            }
+        } catch (IOException e) {
+            throw new DukeException("Unable to save data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load tasks from file; creates the file if absent. Corrupted lines are skipped with warnings.
+     * A current binary mirror ({@code <file>.bin}) is preferred; otherwise the text file is
+     * streamed through a {@link FileChannel} and parsed without regexes, in parallel chunks
+     * once it reaches {@link #PARALLEL_LOAD_BYTES}.
+     *
+     * @return counts and throughput of the load (journal replay included in the timing)
+     */
+    public static LoadStats load(Path file, List<Task> out) throws DukeException {
+        return load(file, out, PARALLEL_LOAD_BYTES);
+    }
+
+    /** Like {@link #load(Path, List)}, with the file size from which the text is parsed in parallel. */
+    static LoadStats load(Path file, List<Task> out, long parallelBytes) throws DukeException {
+        long start = System.nanoTime();
+        try {
+            createIfMissing(file);
+            int before = out.size();
+            int skipped = 0;
+            long bytes;
+            Tracked tracked = TRACKED.get(file.toAbsolutePath().normalize());
+            String signature = snapshotSignature(file);
+            List<Task> mirrored = BinarySnapshot.readIfCurrent(file);
+            if (mirrored != null) {
+                out.addAll(mirrored);
+                bytes = Files.size(BinarySnapshot.pathFor(file));
+                if (tracked != null) {
+                    // The mirror is only current for files Storage wrote, so their lines are data lines.
+                    long[] hashes = new long[mirrored.size()];
+                    for (int i = 0; i < hashes.length; i++) {
+                        hashes[i] = lineHash(dataLine(mirrored.get(i)));
+                    }
+                    tracked.remember(hashes, signature);
+                }
+            } else if (Files.size(file) >= parallelBytes) {
+                LineParser parser = loadChunked(file, out, tracked != null);
+                bytes = Files.size(file);
+                skipped = parser.skipped;
+                if (tracked != null) {
+                    tracked.remember(parser.hashes(), signature);
+                }
+            } else {
+                LineParser parser = new LineParser(out, tracked != null, false);
+                bytes = streamLines(file, parser);
+                skipped = parser.skipped;
+                if (tracked != null) {
+                    tracked.remember(parser.hashes(), signature);
                 }
             }
+            replayJournals(file, new ListReplay(out));
+            return new LoadStats(out.size() - before, skipped, bytes, System.nanoTime() - start);
+        } catch (AccessDeniedException e) {
+            throw new DukeException("Access denied to data file: " + file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new DukeException("Unable to load data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load {@code file} into an empty paged list ({@link TaskList#paged()}). Every line is parsed
+     * once, to skip corrupted ones and to give the list each task's id and dates, but only where
+     * the line starts and its id are kept; the tasks are read again from the file when needed.
+     * Journals are replayed onto the list as for {@link #load}. The binary mirror is not used.
+     */
+    static LoadStats loadPaged(Path file, TaskList out) throws DukeException {
+        long start = System.nanoTime();
+        try {
+            createIfMissing(file);
+            RecordScanner scanner = new RecordScanner(out);
+            long bytes = streamLines(file, scanner);
+            scanner.offsets[scanner.count] = bytes;
+            out.adopt(new PagedFile(file, scanner.offsets, scanner.ids, scanner.count, scanner.verbatim,
+                scanner.done, PagedFile.CACHE_TASKS / PagedFile.PAGE), scanner.renumbered);
+            replayJournals(file, new TaskListReplay(out));
+            return new LoadStats(out.size(), scanner.skipped, bytes, System.nanoTime() - start);
         } catch (AccessDeniedException e) {
             throw new DukeException("Access denied to data file: " + file.toAbsolutePath());
         } catch (IOException e) {
@@ -74,9 +480,805 @@ public final class Storage {
         }
     }
 
-    /** Parse one serialized line into a Task. */
-    private static Task parseLine(String line) throws DukeException {
-        String[] parts = line.split(SPLIT);
+    private static void createIfMissing(Path file) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+    }
+
+    /** Indexes each task line into a paged list and keeps where it starts, for {@link #loadPaged}. */
+    private static final class RecordScanner implements LineSink {
+        private final TaskList out;
+        /** Start of each record; one entry is left for the end of the data. */
+        long[] offsets = new long[1024];
+        int[] ids = new int[1024];
+        final BitSet verbatim = new BitSet();
+        final BitSet done = new BitSet();
+        /** Records without an id of their own, numbered once the whole file is read. */
+        final BitSet renumbered = new BitSet();
+        int count;
+        int skipped;
+
+        RecordScanner(TaskList out) {
+            this.out = out;
+        }
+
+        @Override
+        public void accept(String raw, int lineNo, long offset) {
+            String line = stripBom(raw).trim();
+            if (line.isEmpty()) {
+                return;
+            }
+            Task t;
+            try {
+                t = parseLine(line);
+            } catch (Exception ex) {
+                skipped++;
+                warnCorrupted(lineNo, raw, ex.getMessage());
+                return;
+            }
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            if (!out.indexLoaded(t, count)) {
+                renumbered.set(count);
+            } else if (raw.equals(dataLine(t))) {
+                verbatim.set(count);
+            }
+            if (t.isDone()) {
+                done.set(count);
+            }
+            offsets[count] = offset;
+            ids[count++] = t.getId();
+        }
+    }
+
+    /** Receives decoded lines (without terminators) from {@link #streamLines}. */
+    private interface LineSink {
+        /** @param offset position of the line's first byte in the file */
+        void accept(String raw, int lineNo, long offset);
+    }
+
+    /** Parses snapshot lines into tasks, warning about and counting the ones it must skip. */
+    private static final class LineParser implements LineSink {
+        private final List<Task> out;
+        private int skipped;
+        /** Hash of each parsed line, if asked for (see {@link #track}). */
+        private long[] hashes;
+        private int hashCount;
+        /** Skipped lines whose warnings wait until their line numbers are known, or null to warn at once. */
+        private final List<Skipped> deferred;
+
+        LineParser(List<Task> out, boolean hashLines, boolean deferWarnings) {
+            this.out = out;
+            this.hashes = hashLines ? new long[1024] : null;
+            this.deferred = deferWarnings ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public void accept(String raw, int lineNo, long offset) {
+            String line = stripBom(raw).trim();
+            if (line.isEmpty()) {
+                return;
+            }
+            try {
+                out.add(parseLine(line));
+            } catch (Exception ex) {
+                skipped++;
+                if (deferred != null) {
+                    deferred.add(new Skipped(lineNo, raw, ex.getMessage()));
+                } else {
+                    warnCorrupted(lineNo, raw, ex.getMessage());
+                }
+                return;
+            }
+            if (hashes != null) {
+                if (hashCount == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, hashCount * 2);
+                }
+                hashes[hashCount++] = lineHash(line);
+            }
+        }
+
+        long[] hashes() {
+            return Arrays.copyOf(hashes, hashCount);
+        }
+    }
+
+    /** A line a chunk of a parallel load could not parse, numbered from the start of its chunk. */
+    private static final class Skipped {
+        final int lineNo;
+        final String raw;
+        final String reason;
+
+        Skipped(int lineNo, String raw, String reason) {
+            this.lineNo = lineNo;
+            this.raw = raw;
+            this.reason = reason;
+        }
+    }
+
+    private static void warnCorrupted(int lineNo, String raw, String reason) {
+        System.err.println("Warning: skipped corrupted line " + lineNo + ": \"" + raw + "\" (" + reason + ")");
+    }
+
+    /**
+     * Parse a large text file in newline-aligned byte ranges on the common {@link ForkJoinPool}.
+     * Each chunk reads its range with positional reads and parses into its own list; the lists
+     * are then appended to {@code out} in file order. Warnings are printed afterwards, in order,
+     * once the line count of every earlier chunk is known.
+     *
+     * @return a parser holding the skipped count and, if asked for, the line hashes of the whole file
+     */
+    private static LineParser loadChunked(Path file, List<Task> out, boolean hashLines) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long target = Math.max(MIN_CHUNK_BYTES, size / (4L * ForkJoinPool.getCommonPoolParallelism()));
+            long from = 0;
+            while (from < size) {
+                long to = from + target >= size ? size : lineEndAfter(ch, from + target - 1);
+                chunks.add(new Chunk(ch, from, to, hashLines));
+                from = to;
+            }
+            ForkJoinTask.invokeAll(chunks);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int total = 0;
+        for (Chunk c : chunks) {
+            total += c.tasks.size();
+        }
+        if (out instanceof ArrayList) {
+            ((ArrayList<Task>) out).ensureCapacity(out.size() + total);
+        }
+        LineParser merged = new LineParser(out, false, false);
+        merged.hashes = hashLines ? new long[total] : null;
+        int lineBase = 0;
+        for (Chunk c : chunks) {
+            out.addAll(c.tasks);
+            for (Skipped s : c.parser.deferred) {
+                warnCorrupted(lineBase + s.lineNo, s.raw, s.reason);
+            }
+            merged.skipped += c.parser.skipped;
+            if (hashLines) {
+                System.arraycopy(c.parser.hashes, 0, merged.hashes, merged.hashCount, c.parser.hashCount);
+                merged.hashCount += c.parser.hashCount;
+            }
+            lineBase += c.lines;
+        }
+        return merged;
+    }
+
+    /** Position just past the first '\n' at or after {@code pos}, or the file size if there is none. */
+    private static long lineEndAfter(FileChannel ch, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8 * 1024);
+        long size = ch.size();
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n < 0) {
+                break;
+            }
+            byte[] a = buf.array();
+            for (int i = 0; i < n; i++) {
+                if (a[i] == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /** One newline-aligned byte range of a parallel load. */
+    private static final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel ch;
+        private final long from;
+        private final long to;
+        final List<Task> tasks = new ArrayList<>();
+        final LineParser parser;
+        /** Lines in this range, blank and corrupted ones included. */
+        int lines;
+
+        Chunk(FileChannel ch, long from, long to, boolean hashLines) {
+            this.ch = ch;
+            this.from = from;
+            this.to = to;
+            this.parser = new LineParser(tasks, hashLines, true);
+        }
+
+        @Override
+        protected void compute() {
+            byte[] a = new byte[Math.toIntExact(to - from)];
+            ByteBuffer buf = ByteBuffer.wrap(a);
+            try {
+                // Reads at an explicit position leave the channel's position alone, so chunks can share it.
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf, from + buf.position()) < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int len = buf.position();
+            int start = 0;
+            for (int i = 0; i < len; i++) {
+                if (a[i] == '\n') {
+                    parser.accept(decodeLine(a, start, i), ++lines, from + start);
+                    start = i + 1;
+                }
+            }
+            if (start < len) {
+                parser.accept(decodeLine(a, start, len), ++lines, from + start);
+            }
+        }
+    }
+
+    /**
+     * Read a UTF-8 file line by line through a fixed buffer, splitting on '\n' and
+     * dropping a trailing '\r'. Only one line is held in memory at a time.
+     *
+     * @return number of bytes read
+     */
+    private static long streamLines(Path file, LineSink sink) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        byte[] line = new byte[256];
+        int len = 0;
+        int lineNo = 0;
+        long total = 0;
+        long lineStart = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            int n;
+            while ((n = ch.read(buf)) != -1) {
+                byte[] a = buf.array();
+                int end = buf.position();
+                for (int i = 0; i < end; i++) {
+                    byte b = a[i];
+                    if (b == '\n') {
+                        sink.accept(decodeLine(line, 0, len), ++lineNo, lineStart);
+                        lineStart = total + i + 1;
+                        len = 0;
+                    } else {
+                        if (len == line.length) {
+                            line = Arrays.copyOf(line, len * 2);
+                        }
+                        line[len++] = b;
+                    }
+                }
+                total += n;
+                buf.clear();
+            }
+        }
+        if (len > 0) {
+            sink.accept(decodeLine(line, 0, len), ++lineNo, lineStart);
+        }
+        return total;
+    }
+
+    /** Decodes {@code a[from, to)} as UTF-8, without a trailing '\r'. */
+    private static String decodeLine(byte[] a, int from, int to) {
+        if (to > from && a[to - 1] == '\r') {
+            to--;
+        }
+        return new String(a, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replay the rotated journal (only if its snapshot was never written) and then
+     * the live journal onto {@code out}. A leftover rotated journal means a compaction
+     * was interrupted, so the recovered state is written back as a fresh snapshot.
+     */
+    private static void replayJournals(Path file, Replay out) throws IOException, DukeException {
+        Path rotated = rotatedJournalPath(file);
+        boolean recovered = false;
+        awaitCompaction();
+        if (Files.exists(rotated)) {
+            List<String> records = Files.readAllLines(rotated, StandardCharsets.UTF_8);
+            String base = records.isEmpty() ? "" : records.get(records.size() - 1);
+            if (base.equals(REC_BASE + " | " + snapshotSignature(file))) {
+                replay(records, out);
+            }
+            recovered = true;
+        }
+        Path journal = journalPath(file);
+        if (Files.exists(journal)) {
+            replay(Files.readAllLines(journal, StandardCharsets.UTF_8), out);
+        }
+        if (recovered) {
+            save(file, out.tasks());
+        }
+    }
+
+    /** What journal records are replayed onto: the tasks being loaded. */
+    private interface Replay {
+        int size();
+
+        void add(Task t);
+
+        void setDone(BitSet at, boolean done);
+
+        void remove(BitSet at);
+
+        /** Puts {@code tasks} in so that they end up, in order, at the ascending positions {@code at}. */
+        void insert(BitSet at, List<Task> tasks);
+
+        /** The tasks as replayed so far. */
+        List<Task> tasks();
+    }
+
+    /** Replays onto a plain list of loaded tasks, which are changed in place. */
+    private static final class ListReplay implements Replay {
+        private final List<Task> out;
+
+        ListReplay(List<Task> out) {
+            this.out = out;
+        }
+
+        @Override
+        public int size() {
+            return out.size();
+        }
+
+        @Override
+        public void add(Task t) {
+            out.add(t);
+        }
+
+        @Override
+        public void setDone(BitSet at, boolean done) {
+            for (int i = at.nextSetBit(0); i >= 0; i = at.nextSetBit(i + 1)) {
+                if (done) {
+                    out.get(i).markAsDone();
+                } else {
+                    out.get(i).markAsNotDone();
+                }
+            }
+        }
+
+        @Override
+        public void remove(BitSet at) {
+            if (at.cardinality() == 1) {
+                out.remove(at.nextSetBit(0));
+                return;
+            }
+            int to = 0;
+            for (int from = 0; from < out.size(); from++) {
+                if (!at.get(from)) {
+                    out.set(to++, out.get(from));
+                }
+            }
+            out.subList(to, out.size()).clear();
+        }
+
+        @Override
+        public void insert(BitSet at, List<Task> tasks) {
+            List<Task> merged = new ArrayList<>(out.size() + tasks.size());
+            int from = 0;
+            int k = 0;
+            for (int i = at.nextSetBit(0); i >= 0; i = at.nextSetBit(i + 1)) {
+                while (merged.size() < i) {
+                    merged.add(out.get(from++));
+                }
+                merged.add(tasks.get(k++));
+            }
+            merged.addAll(out.subList(from, out.size()));
+            out.clear();
+            out.addAll(merged);
+        }
+
+        @Override
+        public List<Task> tasks() {
+            return out;
+        }
+    }
+
+    /** Replays onto a paged list through the bulk operations that commands use. */
+    private static final class TaskListReplay implements Replay {
+        private final TaskList out;
+
+        TaskListReplay(TaskList out) {
+            this.out = out;
+        }
+
+        @Override
+        public int size() {
+            return out.size();
+        }
+
+        @Override
+        public void add(Task t) {
+            out.add(t);
+        }
+
+        @Override
+        public void setDone(BitSet at, boolean done) {
+            out.setDone(at, done);
+        }
+
+        @Override
+        public void remove(BitSet at) {
+            out.removeAt(at);
+        }
+
+        @Override
+        public void insert(BitSet at, List<Task> tasks) {
+            out.insertAt(at, tasks);
+        }
+
+        @Override
+        public List<Task> tasks() {
+            return out.view();
+        }
+    }
+
+    /** Apply journal records in order. Records that no longer apply are skipped with warnings. */
+    private static void replay(List<String> records, Replay out) {
+        Inserts inserts = new Inserts();
+        int recNo = 0;
+        for (String raw : records) {
+            recNo++;
+            String rec = stripBom(raw).trim();
+            if (rec.isEmpty()) continue;
+            int bar = rec.indexOf('|');
+            String kind = (bar < 0 ? rec : rec.substring(0, bar)).trim();
+            String arg = bar < 0 ? "" : rec.substring(bar + 1).trim();
+            if (!kind.equals(REC_INSERT)) {
+                inserts.applyTo(out);
+            }
+            try {
+                switch (kind) {
+                    case REC_ADD:
+                        out.add(parseLine(arg));
+                        break;
+                    case REC_MARK:
+                    case REC_UNMARK:
+                        out.setDone(parseIndices(arg, out.size()), kind.equals(REC_MARK));
+                        break;
+                    case REC_DELETE:
+                        out.remove(parseIndices(arg, out.size()));
+                        break;
+                    case REC_INSERT: {
+                        int bar2 = arg.indexOf('|');
+                        if (bar2 < 0) {
+                            throw new DukeException("Missing task");
+                        }
+                        int idx0 = Integer.parseInt(arg.substring(0, bar2).trim());
+                        Task t = parseLine(arg.substring(bar2 + 1).trim());
+                        if (!inserts.isEmpty() && idx0 <= inserts.lastPosition()) {
+                            inserts.applyTo(out);
+                        }
+                        inserts.add(idx0, t, recNo);
+                        break;
+                    }
+                    case REC_BASE:
+                        break;
+                    default:
+                        throw new DukeException("Unknown record: " + kind);
+                }
+            } catch (Exception ex) {
+                System.err.println("Warning: skipped journal record " + recNo + ": \"" + raw + "\" (" + ex.getMessage() + ")");
+            }
+        }
+        inserts.applyTo(out);
+    }
+
+    /**
+     * A run of INSERT records with ascending positions, merged into the list in one pass.
+     * Each position is final for the whole run: a later task of the run is never placed
+     * in front of an earlier one, so none of them shifts another.
+     */
+    private static final class Inserts {
+        private final List<Integer> positions = new ArrayList<>();
+        private final List<Task> tasks = new ArrayList<>();
+        private int firstRecord;
+        private int lastRecord;
+
+        boolean isEmpty() {
+            return tasks.isEmpty();
+        }
+
+        int lastPosition() {
+            return positions.get(positions.size() - 1);
+        }
+
+        void add(int idx0, Task t, int recNo) {
+            if (tasks.isEmpty()) {
+                firstRecord = recNo;
+            }
+            lastRecord = recNo;
+            positions.add(idx0);
+            tasks.add(t);
+        }
+
+        void applyTo(Replay out) {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            int total = out.size() + tasks.size();
+            if (positions.get(0) < 0 || lastPosition() >= total) {
+                System.err.println("Warning: skipped journal records " + firstRecord + "-" + lastRecord
+                    + " (position out of bounds for length " + total + ")");
+            } else {
+                BitSet at = new BitSet();
+                for (int p : positions) {
+                    at.set(p);
+                }
+                out.insert(at, new ArrayList<>(tasks));
+            }
+            positions.clear();
+            tasks.clear();
+        }
+    }
+
+    /** Task-line hashes and size/mtime of a watched data file, as Storage last loaded or wrote it. */
+    private static final class Tracked {
+        /** Hash of each task line in order; blank and malformed lines are left out, so index = position. */
+        long[] hashes = new long[0];
+        String signature = "";
+
+        synchronized void remember(long[] hashes, String signature) {
+            this.hashes = hashes;
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * What another program changed in a watched data file: the task lines {@code from} to
+     * {@code from + removed} of the previous contents were replaced by {@code added}.
+     */
+    static final class ExternalChange {
+        final int from;
+        final int removed;
+        final List<Task> added;
+        /** Hashes of the task lines before the change, i.e. of what this process last loaded or wrote. */
+        final long[] previous;
+        /** 1-based file lines of the replacement; {@code lastLine < firstLine} if lines were only deleted. */
+        final int firstLine;
+        final int lastLine;
+
+        ExternalChange(int from, int removed, List<Task> added, long[] previous, int firstLine, int lastLine) {
+            this.from = from;
+            this.removed = removed;
+            this.added = added;
+            this.previous = previous;
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+
+        /** Where the change is, e.g. "lines 3-5", "line 3" or "2 lines deleted before line 3". */
+        String where() {
+            if (lastLine < firstLine) {
+                return removed + (removed == 1 ? " line" : " lines") + " deleted before line " + firstLine;
+            }
+            return firstLine == lastLine ? "line " + firstLine : "lines " + firstLine + "-" + lastLine;
+        }
+    }
+
+    /**
+     * Start remembering what {@code file} holds each time Storage loads or writes it, so that
+     * {@link #readExternalChange} can tell edits by other programs from its own writes.
+     * Call before {@link #load}; costs 8 bytes per task.
+     */
+    static void track(Path file) {
+        TRACKED.putIfAbsent(file.toAbsolutePath().normalize(), new Tracked());
+    }
+
+    /** Stop remembering the contents of {@code file}. */
+    static void untrack(Path file) {
+        TRACKED.remove(file.toAbsolutePath().normalize());
+    }
+
+    /** 64-bit FNV-1a hash of a trimmed data line. */
+    static long lineHash(String line) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Compares a tracked data file with what Storage last loaded or wrote. Unless its size and
+     * mtime are unchanged, the task lines are hashed and diffed by common prefix and suffix;
+     * only the lines in between are parsed (malformed ones are skipped with a warning). The
+     * file is then remembered as seen, so each change is reported once.
+     *
+     * @return the change, or null if the file is not tracked or no task line was added or removed
+     */
+    static ExternalChange readExternalChange(Path file) throws DukeException {
+        Tracked tracked = TRACKED.get(file.toAbsolutePath().normalize());
+        if (tracked == null) {
+            return null;
+        }
+        synchronized (tracked) {
+            try {
+                String signature = snapshotSignature(file);
+                if (!Files.exists(file) || signature.equals(tracked.signature)) {
+                    return null;
+                }
+                long[] base = tracked.hashes;
+                LineHasher hasher = new LineHasher(base);
+                streamLines(file, hasher);
+                long[] now = hasher.hashes;
+                int n = base.length;
+                int m = hasher.count;
+                int p = 0;
+                while (p < n && p < m && base[p] == now[p]) {
+                    p++;
+                }
+                int s = 0;
+                while (s < n - p && s < m - p && base[n - 1 - s] == now[m - 1 - s]) {
+                    s++;
+                }
+                if (p == n && p == m) {
+                    tracked.signature = signature;
+                    return null;
+                }
+                int end = m - s;
+                int firstLine = p < m ? hasher.lineNos[p] : (m == 0 ? 1 : hasher.lineNos[m - 1] + 1);
+                int lastLine = end > p ? hasher.lineNos[end - 1] : firstLine - 1;
+                // Everything between the unchanged lines, so malformed lines next to the edit are warned about.
+                RegionParser region = new RegionParser(p > 0 ? hasher.lineNos[p - 1] + 1 : 1,
+                    s > 0 ? hasher.lineNos[end] - 1 : Integer.MAX_VALUE);
+                if (end > p) {
+                    streamLines(file, region);
+                }
+                tracked.remember(Arrays.copyOf(now, m), signature);
+                if (n - s - p == 0 && region.tasks.isEmpty()) {
+                    return null;
+                }
+                return new ExternalChange(p, n - s - p, region.tasks, base, firstLine, lastLine);
+            } catch (IOException e) {
+                throw new DukeException("Unable to read data: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hashes the task lines of a file and remembers their line numbers. Like {@link #load}, it
+     * leaves out blank lines and lines {@link #parseLine} rejects, so its hashes line up with
+     * {@link Tracked#hashes}. A line hashing the same as the tracked line at its index parsed
+     * before and is not parsed again.
+     */
+    private static final class LineHasher implements LineSink {
+        private final long[] base;
+        long[] hashes = new long[1024];
+        int[] lineNos = new int[1024];
+        int count;
+
+        LineHasher(long[] base) {
+            this.base = base;
+        }
+
+        @Override
+        public void accept(String raw, int lineNo, long offset) {
+            String line = stripBom(raw).trim();
+            if (line.isEmpty()) {
+                return;
+            }
+            long hash = lineHash(line);
+            if (count >= base.length || base[count] != hash) {
+                try {
+                    parseLine(line);
+                } catch (Exception ex) {
+                    return;
+                }
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                lineNos = Arrays.copyOf(lineNos, count * 2);
+            }
+            hashes[count] = hash;
+            lineNos[count++] = lineNo;
+        }
+    }
+
+    /** Parses the lines {@code firstLine} to {@code lastLine} (1-based, inclusive) of a file. */
+    private static final class RegionParser implements LineSink {
+        private final int firstLine;
+        private final int lastLine;
+        final List<Task> tasks = new ArrayList<>();
+
+        RegionParser(int firstLine, int lastLine) {
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+        }
+
+        @Override
+        public void accept(String raw, int lineNo, long offset) {
+            String line = stripBom(raw).trim();
+            if (lineNo < firstLine || lineNo > lastLine || line.isEmpty()) {
+                return;
+            }
+            try {
+                tasks.add(parseLine(line));
+            } catch (Exception ex) {
+                warnCorrupted(lineNo, raw, ex.getMessage());
+            }
+        }
+    }
+
+    /** True if changes are recorded in a journal (or a rotated one) that {@code file} does not hold yet. */
+    static boolean hasJournal(Path file) {
+        return journalSize(file) > 0 || Files.exists(rotatedJournalPath(file));
+    }
+
+    /**
+     * Calls {@code onChange} on a daemon thread whenever {@code file} is created or modified, by
+     * anyone; {@link #readExternalChange} tells Storage's own writes apart. Events within
+     * {@value #WATCH_SETTLE_MS} ms of each other are reported once. Close the result to stop.
+     */
+    static Closeable watch(Path file, Runnable onChange) throws DukeException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path name = file.getFileName();
+        WatchService watcher;
+        try {
+            watcher = dir.getFileSystem().newWatchService();
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new DukeException("Unable to watch data file: " + e.getMessage());
+        }
+        Thread t = new Thread(() -> {
+            try {
+                while (true) {
+                    boolean changed = drain(watcher.take(), name);
+                    WatchKey more;
+                    while ((more = watcher.poll(WATCH_SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                        changed |= drain(more, name);
+                    }
+                    if (changed) {
+                        try {
+                            onChange.run();
+                        } catch (RuntimeException e) {
+                            System.err.println("Warning: failed to reload " + name + ": " + e.getMessage());
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Closed: stop watching.
+            }
+        }, "quokka-watcher");
+        t.setDaemon(true);
+        t.start();
+        return watcher;
+    }
+
+    /** Whether a watch key carries an event for {@code name} (or lost events), resetting the key. */
+    private static boolean drain(WatchKey key, Path name) {
+        boolean hit = false;
+        for (WatchEvent<?> e : key.pollEvents()) {
+            hit |= e.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(e.context());
+        }
+        key.reset();
+        return hit;
+    }
+
+    /** Parse one serialized line into a Task, keeping its id if the line starts with one. */
+    static Task parseLine(String line) throws DukeException {
+        int id = 0;
+        if (line.charAt(0) == ID_PREFIX) {
+            int bar = line.indexOf('|');
+            try {
+                id = Integer.parseInt(line.substring(1, bar < 0 ? line.length() : bar).trim());
+            } catch (NumberFormatException e) {
+                throw new DukeException("Invalid id: " + line);
+            }
+            if (id <= 0 || bar < 0) {
+                throw new DukeException("Invalid id: " + line);
+            }
+            line = line.substring(bar + 1).trim();
+        }
+        String[] parts = splitFields(line);
         if (parts.length < 3) throw new DukeException("Too few fields: " + line);
 
         String type = parts[0].trim();
@@ -100,11 +1302,38 @@ public final class Storage {
                 throw new DukeException("Unknown type: " + type);
         }
         if (done) t.markAsDone();
+        t.setId(id);
         return t;
     }
 
+    /**
+     * Split on '|' and trim each field, in one pass and without a regex.
+     * Mirrors {@code line.split("\\s*\\|\\s*")}: trailing empty fields are dropped.
+     */
+    static String[] splitFields(String line) {
+        String[] parts = new String[5];
+        int count = 0;
+        int from = 0;
+        while (true) {
+            int bar = line.indexOf('|', from);
+            int end = bar < 0 ? line.length() : bar;
+            if (count == parts.length) {
+                parts = Arrays.copyOf(parts, count * 2);
+            }
+            parts[count++] = line.substring(from, end).trim();
+            if (bar < 0) {
+                break;
+            }
+            from = bar + 1;
+        }
+        while (count > 0 && parts[count - 1].isEmpty()) {
+            count--;
+        }
+        return count == parts.length ? parts : Arrays.copyOf(parts, count);
+    }
+
     /** Remove UTF-8 BOM if present. */
-    private static String stripBom(String s) {
+    static String stripBom(String s) {
         if (s != null && !s.isEmpty() && s.charAt(0) == '\uFEFF') {
             return s.substring(1);
         }
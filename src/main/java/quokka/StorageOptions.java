@@ -0,0 +1,121 @@
+package quokka;
+
+/**
+ * Immutable persistence settings chosen when a {@link Quokka} is constructed.
+ * Use {@link #defaults()} and the {@code with...} methods to derive variants.
+ */
+public final class StorageOptions {
+    /** Default group-commit window in milliseconds. */
+    public static final long DEFAULT_GROUP_WINDOW_MS = 10;
+
+    public final boolean journaled;
+    public final Durability durability;
+    public final long groupWindowMs;
+    public final boolean binarySnapshot;
+    public final boolean columnarStore;
+    public final boolean hotReload;
+    public final boolean pagedStore;
+
+    private StorageOptions(boolean journaled, Durability durability, long groupWindowMs, boolean binarySnapshot,
+            boolean columnarStore, boolean hotReload, boolean pagedStore) {
+        this.journaled = journaled;
+        this.durability = durability;
+        this.groupWindowMs = groupWindowMs;
+        this.binarySnapshot = binarySnapshot;
+        this.columnarStore = columnarStore;
+        this.hotReload = hotReload;
+        this.pagedStore = pagedStore;
+    }
+
+    /** Full-file rewrite on every mutation, on the caller's thread. */
+    public static StorageOptions defaults() {
+        return new StorageOptions(false, Durability.SYNC, DEFAULT_GROUP_WINDOW_MS, false, false, false, false);
+    }
+
+    /** Return a copy that appends journal records instead of rewriting the whole file. */
+    public StorageOptions withJournal(boolean journaled) {
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /** Return a copy with the given durability mode. */
+    public StorageOptions withDurability(Durability durability) {
+        assert durability != null : "durability must not be null";
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /** Return a copy that also writes a binary mirror ({@code tasks.txt.bin}) with every snapshot. */
+    public StorageOptions withBinarySnapshot(boolean binarySnapshot) {
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /**
+     * Return a copy that keeps loaded tasks in primitive columns ({@link TaskList#columnar()})
+     * instead of task objects: several times smaller for large lists, at the cost of building
+     * a task object whenever one is read.
+     */
+    public StorageOptions withColumnarStore(boolean columnarStore) {
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /**
+     * Return a copy that watches the data file and applies edits made by other programs
+     * (a text editor, a script) to the running list instead of overwriting them on the next save.
+     */
+    public StorageOptions withHotReload(boolean hotReload) {
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /**
+     * Return a copy that leaves loaded tasks in the data file ({@link TaskList#paged()}) and reads
+     * them back on demand, for lists larger than the heap. The file must then not be edited while
+     * Quokka runs, so hot reload is not available with this option.
+     */
+    public StorageOptions withPagedStore(boolean pagedStore) {
+        return new StorageOptions(journaled, durability, groupWindowMs, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+
+    /**
+     * Return a copy with the task store named by {@code -Dquokka.store}: {@code paged}
+     * ({@link #withPagedStore}), {@code columnar} ({@link #withColumnarStore}) or {@code objects};
+     * unset leaves this copy's choice. Used by the app, the CLI and the server, which build their
+     * own options.
+     */
+    public StorageOptions withStoreFromProperties() {
+        String store = System.getProperty("quokka.store");
+        if (store == null) {
+            return this;
+        }
+        switch (store) {
+            case "paged":
+                return withColumnarStore(false).withPagedStore(true);
+            case "columnar":
+                return withPagedStore(false).withColumnarStore(true);
+            case "objects":
+                return withPagedStore(false).withColumnarStore(false);
+            default:
+                System.err.println("Warning: unknown quokka.store \"" + store
+                    + "\"; expected paged, columnar or objects.");
+                return this;
+        }
+    }
+
+    /** True if snapshots should be forced to disk before a write is considered done. */
+    public boolean fsync() {
+        return durability == Durability.GROUP;
+    }
+
+    /** Return a copy whose {@link Durability#GROUP} mode coalesces mutations over {@code ms} milliseconds. */
+    public StorageOptions withGroupWindowMs(long ms) {
+        if (ms < 0) {
+            throw new IllegalArgumentException("Group window must be >= 0 ms: " + ms);
+        }
+        return new StorageOptions(journaled, durability, ms, binarySnapshot, columnarStore, hotReload,
+            pagedStore);
+    }
+}
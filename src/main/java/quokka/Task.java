@@ -5,10 +5,15 @@
 
 package quokka;
 
+import java.time.LocalDate;
+import java.util.List;
+
 public class Task {
     protected String description;
     protected boolean isDone;
     protected final TaskType type;
+    /** Handle assigned by the owning {@link TaskList}; 0 until the task is added. */
+    private int id;
 
     public Task(String description, TaskType type) {
         this.description = description;
@@ -30,8 +35,16 @@ public class Task {
         return type;
     }
 
+    public int getId() { return id; }
+    void setId(int id) { this.id = id; }
+
     public void markAsDone() { isDone = true; }
     public void markAsNotDone() { isDone = false; }
+
+    /** Returns a copy of this task with the given done state (the id is not copied). */
+    public Task withDone(boolean done) {
+        return new Task(description, type, done);
+    }
     public String getDescription() { return description; }
     public boolean isDone() { return isDone; }
 
@@ -44,4 +57,18 @@ public class Task {
         return type.getLabel() + " | " + (isDone ? "1" : "0") + " | " + description;
     }
 
+    /** Dates this task is filed under in the date index (none for plain tasks). */
+    public List<LocalDate> getDates() {
+        return List.of();
+    }
+
+    /**
+     * Normalized logical identity used for duplicate detection: type label plus
+     * trimmed, lower-cased description. Subclasses append their date fields.
+     * Built from fields directly; the done flag is not part of the identity.
+     */
+    public String identityKey() {
+        return type.getLabel() + "|" + description.trim().toLowerCase();
+    }
+
 }
@@ -0,0 +1,164 @@
+package quokka;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable, versioned task store that keeps task fields in primitive columns instead of
+ * task objects: a type byte, a done bit, the id, two epoch days and the offset of the
+ * description in a shared {@link DescriptionArena}. {@link #get} builds a fresh
+ * {@link Todo}/{@link Deadline}/{@link Event} view from those on every call, so nothing but
+ * the columns stays on the heap.
+ * <p>
+ * Each leaf of the {@link SlotStore} layout is a {@link Chunk} of parallel arrays.
+ * Descriptions of removed or replaced tasks stay in the arena until the list is rebuilt, e.g.
+ * when the workspace is loaded again.
+ */
+final class TaskColumns extends SlotStore<TaskColumns.Chunk> {
+    private static final TaskType[] TYPES = TaskType.values();
+
+    /** Up to {@value SlotStore#LEAF} tasks in parallel arrays. */
+    static final class Chunk {
+        final byte[] types = new byte[LEAF];
+        final int[] ids = new int[LEAF];
+        final int[] descs = new int[LEAF];
+        /** Per task: the deadline date twice, or event start and end; unused for todos. */
+        final int[] days = new int[2 * LEAF];
+        /** Bit i set if task i is done. */
+        long done;
+
+        Chunk copy() {
+            Chunk c = new Chunk();
+            System.arraycopy(types, 0, c.types, 0, LEAF);
+            System.arraycopy(ids, 0, c.ids, 0, LEAF);
+            System.arraycopy(descs, 0, c.descs, 0, LEAF);
+            System.arraycopy(days, 0, c.days, 0, 2 * LEAF);
+            c.done = done;
+            return c;
+        }
+
+        /** Copies slot {@code from} of {@code src} into slot {@code to}. */
+        void copySlot(Chunk src, int from, int to) {
+            types[to] = src.types[from];
+            ids[to] = src.ids[from];
+            descs[to] = src.descs[from];
+            days[2 * to] = src.days[2 * from];
+            days[2 * to + 1] = src.days[2 * from + 1];
+            setDone(to, (src.done & (1L << from)) != 0);
+        }
+
+        void set(int i, Task t, DescriptionArena arena) {
+            types[i] = (byte) t.getType().ordinal();
+            ids[i] = t.getId();
+            descs[i] = arena.add(t.getDescription());
+            if (t instanceof Deadline) {
+                days[2 * i] = (int) ((Deadline) t).getByDate().toEpochDay();
+                days[2 * i + 1] = days[2 * i];
+            } else if (t instanceof Event) {
+                days[2 * i] = (int) ((Event) t).getFromDate().toEpochDay();
+                days[2 * i + 1] = (int) ((Event) t).getToDate().toEpochDay();
+            } else {
+                days[2 * i] = 0;
+                days[2 * i + 1] = 0;
+            }
+            setDone(i, t.isDone());
+        }
+
+        void setDone(int i, boolean isDone) {
+            done = isDone ? done | (1L << i) : done & ~(1L << i);
+        }
+    }
+
+    private final DescriptionArena arena;
+
+    private TaskColumns(DescriptionArena arena, Branch[] branches, int[] totals, int branchCount, int slots,
+            int size) {
+        super(branches, totals, branchCount, slots, size);
+        this.arena = arena;
+    }
+
+    /** A new, empty store with its own arena. */
+    static TaskColumns empty() {
+        return new TaskColumns(new DescriptionArena(), new Branch[4], new int[4], 0, 0, 0);
+    }
+
+    @Override
+    public TaskColumns emptyCopy() {
+        return empty();
+    }
+
+    /** Fixed column bytes, the description if it is new to the arena, and a share of the dedup table. */
+    @Override
+    public long footprintOf(Task t) {
+        return 32 + t.getDescription().length();
+    }
+
+    /** Bytes held by the columns and the arena, for measuring the per-task footprint. */
+    long bytesUsed() {
+        long perChunk = 16 + 3 * (16 + 4L * LEAF) + (16 + LEAF) + 8 + 16;
+        long perBranch = 2 * (16 + 8L * LEAF) + 16;
+        long chunks = (slots + LEAF - 1) / LEAF;
+        return arena.bytesUsed() + 16L + branches.length * 8L + branchCount * perBranch + chunks * perChunk;
+    }
+
+    @Override
+    Chunk newLeaf() {
+        return new Chunk();
+    }
+
+    @Override
+    Chunk copyLeaf(Chunk leaf) {
+        return leaf.copy();
+    }
+
+    @Override
+    void setSlot(Chunk leaf, int i, Task t) {
+        leaf.set(i, t, arena);
+    }
+
+    @Override
+    Task getSlot(Chunk c, int i) {
+        String desc = arena.get(c.descs[i]);
+        boolean done = (c.done & (1L << i)) != 0;
+        Task t;
+        switch (TYPES[c.types[i]]) {
+            case DEADLINE:
+                t = new Deadline(desc, LocalDate.ofEpochDay(c.days[2 * i]), done);
+                break;
+            case EVENT:
+                t = new Event(desc, LocalDate.ofEpochDay(c.days[2 * i]),
+                    LocalDate.ofEpochDay(c.days[2 * i + 1]), done);
+                break;
+            default:
+                t = new Todo(desc, done);
+                break;
+        }
+        t.setId(c.ids[i]);
+        return t;
+    }
+
+    @Override
+    int idInSlot(Chunk leaf, int i) {
+        return leaf.ids[i];
+    }
+
+    @Override
+    boolean doneInSlot(Chunk leaf, int i) {
+        return (leaf.done & (1L << i)) != 0;
+    }
+
+    @Override
+    void copySlot(Chunk src, int from, Chunk dst, int to) {
+        dst.copySlot(src, from, to);
+    }
+
+    /** A dead slot only holds primitives, so the chunk is kept as it is. */
+    @Override
+    Chunk clearSlot(Chunk leaf, int i) {
+        return leaf;
+    }
+
+    @Override
+    TaskColumns withStructure(Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        return new TaskColumns(arena, branches, totals, branchCount, slots, size);
+    }
+}
@@ -1,58 +1,463 @@
 /**
  * Mutable list of tasks. Provides operations to add/remove/get and to search (Level-9).
+ * <p>
+ * Each task gets an id that stays with it (and is saved with it by {@link Storage}); new
+ * tasks get one above every id in the list. {@link #indexOfId} finds its current position through a map from id to
+ * store slot. Besides the duplicate index, the list keeps
+ * an inverted index from lower-case character trigrams to posting lists of ids, so
+ * {@code find} only touches tasks that contain every trigram of the keyword, and a
+ * sorted date index (deadline dates, event start and end dates) for range queries, plus one of
+ * the deadlines not yet done, so {@code overdue} does not walk finished history.
+ * <p>
+ * The tasks themselves live in an immutable {@link TaskStore}; every change publishes a new
+ * version through a volatile field. By default that is a {@link TaskVector} of task objects;
+ * {@link #columnar()} creates a list backed by {@link TaskColumns}, which keeps only primitive
+ * columns and materializes a task view on each access. {@link #paged()} creates a list for data
+ * files larger than the heap, backed by {@link TaskPages}: it keeps no trigram index ({@code find}
+ * scans the file, checking raw lines before decoding them) and only a hash per task for duplicate
+ * checks. {@link #view()}, {@link #get} and
+ * {@link #size} read the current version without locking and always see a consistent list,
+ * even while another thread mutates. Marking replaces the task with a copy, so a snapshot's tasks never change
+ * under it either. Mutations and index queries synchronize on the list (one writer at a time).
  */
 
 
 package quokka;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
 
 public class TaskList {
-    private final List<Task> tasks;
+    /** Current version; replaced, never modified, by the writer. */
+    private volatile TaskStore tasks;
+    /** Identity key -> number of tasks with that key; kept in step with every add/remove. */
+    private final Map<String, Integer> identities = new HashMap<>();
+    /** Task id -> slot in the store, for {@code #id} lookups and for resolving index postings. */
+    private final IdSlotMap slots = new IdSlotMap();
+    /** Whether an id is still in the list; posting lists drop removed ids lazily (see {@link IdList}). */
+    private final IntPredicate isLive = id -> slots.get(id) >= 0;
+    /** Lower-case trigram -> ids of tasks whose description contains it. */
+    private final Map<String, IdList> trigrams = new HashMap<>();
+    /** Date -> ids of deadlines due and events starting or ending on that day. */
+    private final TreeMap<LocalDate, IdList> byDate = new TreeMap<>();
+    /** Due date -> ids of deadlines that are not done; kept in step with {@link #setDone}. */
+    private final TreeMap<LocalDate, IdList> openDeadlines = new TreeMap<>();
+    /** Whether an id is still an open deadline in the current version; checked without materializing it. */
+    private final IntPredicate isOpen = id -> {
+        int slot = slots.get(id);
+        return slot >= 0 && !tasks.isDoneInSlot(slot);
+    };
+    private int nextId = 1;
+    /** Running {@link #estimateBytes} total of the tasks in the list. */
+    private long estimatedBytes;
+    /** True for a {@link #paged()} list. */
+    private final boolean paged;
+    /**
+     * Paged lists only: sorted {@link Storage#lineHash} of the identity key of every task read from
+     * the data file. {@code identities} then counts the changes since: +1 for a task added, -1 for
+     * one removed.
+     */
+    private long[] loadedIdentities = new long[0];
+    private int loadedCount;
 
-    public TaskList() { this.tasks = new ArrayList<>(); }
-    public TaskList(List<Task> existing) { this.tasks = existing; }
-    /** Returns tasks whose description contains the keyword (case-insensitive). */
-    public void add(Task... items) {
+    public TaskList() { this(TaskVector.empty()); }
+    /** Creates a list holding (not aliasing) the given tasks. */
+    public TaskList(List<Task> existing) {
+        this(TaskVector.empty());
+        addAll(existing);
+    }
+    private TaskList(TaskStore empty) {
+        this.tasks = empty;
+        this.paged = empty instanceof TaskPages;
+    }
+
+    /** Creates an empty list that stores tasks in primitive columns (see {@link TaskColumns}). */
+    public static TaskList columnar() {
+        return new TaskList(TaskColumns.empty());
+    }
+
+    /** Creates an empty list to be filled by {@link Storage#loadPaged}, which leaves the tasks in the file. */
+    public static TaskList paged() {
+        return new TaskList(TaskPages.empty());
+    }
+
+    /**
+     * Indexes the identity of task {@code record} read by {@link Storage#loadPaged}, and its dates
+     * if it keeps the id it was saved with. That is the case unless it has none or an earlier
+     * record took it; such records get a new id in {@link #adopt}, once every saved id is known.
+     * The task itself is not kept; {@link #adopt} then makes the file's records the list.
+     *
+     * @return true if the task keeps its id
+     */
+    synchronized boolean indexLoaded(Task t, int record) {
+        estimatedBytes += estimateBytes(t);
+        if (loadedCount == loadedIdentities.length) {
+            loadedIdentities = Arrays.copyOf(loadedIdentities, Math.max(1024, loadedCount * 2));
+        }
+        loadedIdentities[loadedCount++] = Storage.lineHash(t.identityKey());
+        if (t.getId() <= 0 || slots.get(t.getId()) >= 0) {
+            return false;
+        }
+        slots.put(t.getId(), record);
+        nextId = Math.max(nextId, t.getId() + 1);
+        indexDates(t);
+        return true;
+    }
+
+    /**
+     * Makes the records of {@code file}, each already passed to {@link #indexLoaded}, the tasks of
+     * this paged list. The {@code renumbered} records, those that did not keep their id, get one now.
+     */
+    synchronized void adopt(PagedFile file, BitSet renumbered) {
+        loadedIdentities = Arrays.copyOf(loadedIdentities, loadedCount);
+        Arrays.sort(loadedIdentities);
+        for (int r = renumbered.nextSetBit(0); r >= 0; r = renumbered.nextSetBit(r + 1)) {
+            file.assignId(r, nextId++);
+        }
+        // Only read back once every id is set: a page is decoded, with its ids, as a whole.
+        for (int r = renumbered.nextSetBit(0); r >= 0; r = renumbered.nextSetBit(r + 1)) {
+            indexDates(file.task(r));
+        }
+        TaskPages v = TaskPages.over(file);
+        reslot(v);
+        tasks = v;
+    }
+
+    /**
+     * The version to change. For a paged list whose current version has been saved, that is
+     * the same tasks read from the new file, which frees the overlay of the old one.
+     */
+    private TaskStore latest() {
+        if (paged) {
+            TaskPages merged = ((TaskPages) tasks).merged();
+            if (merged != null) {
+                reslot(merged);
+                tasks = merged;
+            }
+        }
+        return tasks;
+    }
+    /** Appends the given tasks (nulls are ignored). */
+    public synchronized void add(Task... items) {
         if (items == null) {
             return;
         }
+        TaskStore v = latest();
+        reserveIds(Arrays.asList(items));
         for (Task t : items) {
             if (t != null) {
-                tasks.add(t);
+                index(t);
+                v = v.append(t);
+                slots.put(t.getId(), v.slotCount() - 1);
             }
         }
+        tasks = v;
+    }
+    /** Appends every task in order, e.g. the result of {@link Storage#load}; published as one version. */
+    public synchronized void addAll(List<Task> items) {
+        TaskStore v = latest();
+        reserveIds(items);
+        for (Task t : items) {
+            index(t);
+            v = v.append(t);
+            slots.put(t.getId(), v.slotCount() - 1);
+        }
+        tasks = v;
+    }
+    /**
+     * Removes and returns the task at the 0-based index. The store only marks its slot dead;
+     * once dead slots outnumber the tasks, the store is compacted and the slot map rebuilt,
+     * so a run of deletes costs O(1) amortized each on top of the copy-on-write path.
+     */
+    public synchronized Task removeAt(int idx0) {
+        Task removed = latest().get(idx0);
+        TaskStore v = tasks.removeAt(idx0);
+        unindex(removed);
+        if (v.slotCount() - v.size() > Math.max(v.size(), SlotStore.LEAF)) {
+            v = v.compact();
+            reslot(v);
+        }
+        tasks = v;
+        return removed;
+    }
+    /**
+     * Removes the tasks at the given 0-based indices (those past the end are ignored) in one
+     * pass that also compacts the store, and publishes the result as one version.
+     * Returns the removed tasks in list order.
+     */
+    public synchronized List<Task> removeAt(BitSet idx0s) {
+        TaskStore v = latest();
+        List<Task> removed = new ArrayList<>();
+        for (int i = idx0s.nextSetBit(0); i >= 0 && i < v.size(); i = idx0s.nextSetBit(i + 1)) {
+            Task t = v.get(i);
+            unindex(t);
+            removed.add(t);
+        }
+        if (!removed.isEmpty()) {
+            v = v.removeAt(idx0s);
+            reslot(v);
+            tasks = v;
+        }
+        return removed;
+    }
+    /**
+     * Puts tasks back so that they end up, in order, at the given ascending 0-based indices,
+     * keeping their ids; e.g. {@code insertAt(at, removeAt(at))} leaves the list as it was.
+     * Like a bulk remove it is one pass that compacts the store.
+     */
+    public synchronized void insertAt(BitSet idx0s, List<Task> items) {
+        reserveIds(items);
+        for (Task t : items) {
+            index(t);
+        }
+        TaskStore v = latest().insertAt(idx0s, items);
+        reslot(v);
+        tasks = v;
+    }
+    /**
+     * Replaces the {@code count} tasks from 0-based index {@code from} on with {@code items}
+     * in one pass, e.g. lines edited in the data file by another program. Only the tasks
+     * involved are unindexed and indexed; items keep an id they bring along unless another
+     * task has it. Returns the replaced tasks.
+     */
+    public synchronized List<Task> splice(int from, int count, List<Task> items) {
+        TaskStore v = latest();
+        List<Task> removed = new ArrayList<>(v.subList(from, from + count));
+        for (Task t : removed) {
+            unindex(t);
+        }
+        reserveIds(items);
+        for (Task t : items) {
+            index(t);
+        }
+        v = v.splice(from, count, items);
+        reslot(v);
+        tasks = v;
+        return removed;
+    }
+    /** Points the slot map at a freshly compacted store, where slot and position coincide. */
+    private void reslot(TaskStore compacted) {
+        slots.clear();
+        for (int i = 0; i < compacted.size(); i++) {
+            slots.put(compacted.idAt(i), i);
+        }
+    }
+    /** Current 0-based index of the task with the given id, or -1 if there is none. O(1). */
+    public synchronized int indexOfId(int id) {
+        int slot = slots.get(id);
+        return slot < 0 ? -1 : tasks.positionOf(slot);
+    }
+    /**
+     * Marks the task at the 0-based index done or not done by replacing it with an updated
+     * copy (same id), so earlier snapshots keep the old state. Returns the new task.
+     */
+    public synchronized Task setDone(int idx0, boolean done) {
+        Task old = latest().get(idx0);
+        Task updated = withDone(old, done);
+        tasks = tasks.replace(idx0, updated);
+        if (old instanceof Deadline && old.isDone() != done) {
+            trackOpen((Deadline) updated);
+        }
+        return updated;
+    }
+    /**
+     * Like {@link #setDone(int, boolean)} for every task at the given 0-based indices (those
+     * past the end are ignored), applied in one pass and published as one version.
+     */
+    public synchronized void setDone(BitSet idx0s, boolean done) {
+        List<Deadline> changed = new ArrayList<>();
+        tasks = latest().replaceAt(idx0s, old -> {
+            Task updated = withDone(old, done);
+            if (old instanceof Deadline && old.isDone() != done) {
+                changed.add((Deadline) updated);
+            }
+            return updated;
+        });
+        for (Deadline d : changed) {
+            trackOpen(d);
+        }
+    }
+    /** Adds a deadline that was reopened to, or drops one that was done from, the open index. */
+    private void trackOpen(Deadline d) {
+        if (!d.isDone()) {
+            openDeadlines.computeIfAbsent(d.getByDate(), k -> new IdList()).add(d.getId());
+        } else {
+            dropPosting(openDeadlines, d.getByDate(), isOpen);
+        }
+    }
+    private static Task withDone(Task old, boolean done) {
+        Task updated = old.withDone(done);
+        updated.setId(old.getId());
+        return updated;
     }
-    /** Returns tasks whose description contains the keyword (case-insensitive). */
-    public Task removeAt(int idx0) { return tasks.remove(idx0); }
     /** Returns tasks whose description contains the keyword (case-insensitive). */
     public Task get(int idx0) { return tasks.get(idx0); }
     /** Returns tasks whose description contains the keyword (case-insensitive). */
     public int size() { return tasks.size(); }
-    /** Returns tasks whose description contains the keyword (case-insensitive). */
+    /** Returns an immutable snapshot of the current tasks; later changes do not affect it. Lock-free. */
     public List<Task> view() { return tasks; }
 
+    /** {@code list} itself if it is already an immutable snapshot, otherwise an immutable copy. */
+    static List<Task> immutableCopy(List<Task> list) {
+        return list instanceof TaskStore ? list : List.copyOf(list);
+    }
+
+    /**
+     * Returns tasks whose description contains the keyword (case-insensitive), in list order.
+     * Keywords of three or more characters are answered from the trigram index; shorter
+     * ones fall back to a scan.
+     */
     public List<Task> find(String keyword) {
+        return find(keyword, Integer.MAX_VALUE);
+    }
+
+    /** Like {@link #find(String)}, but stops after the first {@code limit} matches. */
+    public synchronized List<Task> find(String keyword, int limit) {
         String kw = keyword.toLowerCase();
+        if (paged) {
+            return ((TaskPages) tasks).find(kw, limit);
+        }
         List<Task> out = new ArrayList<>();
-        for (Task t : tasks) {
-            if (t.getDescription().toLowerCase().contains(kw)) {
-                out.add(t);
+        if (kw.length() < 3) {
+            for (Task t : tasks) {
+                if (out.size() >= limit) {
+                    break;
+                }
+                if (t.getDescription().toLowerCase().contains(kw)) {
+                    out.add(t);
+                }
             }
+            return out;
         }
+        IdList shortest = null;
+        for (int i = 0; i + 3 <= kw.length(); i++) {
+            IdList posting = trigrams.get(kw.substring(i, i + 3));
+            if (posting == null) {
+                return out;
+            }
+            if (shortest == null || posting.size() < shortest.size()) {
+                shortest = posting;
+            }
+        }
+        TaskStore v = tasks;
+        long[] found = new long[shortest.size()];
+        int n = 0;
+        for (int i = 0; i < shortest.size(); i++) {
+            int slot = slots.get(shortest.get(i));
+            if (slot < 0) {
+                continue; // removed, not yet dropped from the posting list
+            }
+            if (v.getSlot(slot).getDescription().toLowerCase().contains(kw)) {
+                found[n++] = positionKey(v, slot);
+            }
+        }
+        addInListOrder(v, found, n, limit, out);
         return out;
     }
 
+    /**
+     * Sort key of a slot: its list position, then the slot itself. Postings are in id order,
+     * which is not list order once a task was inserted mid-list or loaded with a lower id.
+     */
+    private static long positionKey(TaskStore v, int slot) {
+        return (long) v.positionOf(slot) << 32 | slot;
+    }
+
+    /** Appends the tasks of the first {@code n} position keys to {@code out}, in list order, up to {@code limit}. */
+    private static void addInListOrder(TaskStore v, long[] keys, int n, int limit, List<Task> out) {
+        Arrays.sort(keys, 0, n);
+        for (int i = 0; i < n && out.size() < limit; i++) {
+            out.add(v.getSlot((int) keys[i]));
+        }
+    }
+
     /** Case-insensitive search by keyword (non-destructive). */
     public java.util.List<Task> findByKeyword(String keyword) {
         if (keyword == null || keyword.isBlank()) {
             return java.util.List.of();
         }
-        final String k = keyword.toLowerCase();
-        return tasks.stream()
-            .filter(t -> t.getDescription().toLowerCase().contains(k))
-            .collect(java.util.stream.Collectors.toList());
+        return find(keyword);
+    }
+
+    /** Tasks with a deadline, event start or event end on {@code date}, in list order. */
+    public synchronized List<Task> dueOn(LocalDate date) {
+        return resolve(byDate.subMap(date, true, date, true));
+    }
+
+    /**
+     * Tasks with any indexed date in {@code [from, to]}, ordered by their earliest date
+     * in the range and then by list order. O(log n + k).
+     */
+    public synchronized List<Task> between(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return resolve(byDate.subMap(from, true, to, true));
+    }
+
+    /**
+     * Deadlines that are not done and were due before {@code today}, oldest first. Answered
+     * from the index of open deadlines, so done ones cost nothing: O(log n + k).
+     */
+    public synchronized List<Task> overdue(LocalDate today) {
+        List<Task> out = new ArrayList<>();
+        for (Task t : resolve(openDeadlines.headMap(today, false))) {
+            if (!t.isDone()) {
+                out.add(t); // skips ids marked done but not yet dropped from their posting
+            }
+        }
+        return out;
+    }
+
+    /** Tasks in the postings of {@code range}, by their first date in it and then in list order. */
+    private List<Task> resolve(NavigableMap<LocalDate, IdList> range) {
+        TaskStore v = tasks;
+        Set<Integer> seen = new HashSet<>();
+        List<Task> out = new ArrayList<>();
+        for (IdList posting : range.values()) {
+            long[] keys = new long[posting.size()];
+            int n = 0;
+            for (int i = 0; i < posting.size(); i++) {
+                int slot = slots.get(posting.get(i));
+                if (slot >= 0 && seen.add(posting.get(i))) {
+                    keys[n++] = positionKey(v, slot);
+                }
+            }
+            addInListOrder(v, keys, n, Integer.MAX_VALUE, out);
+        }
+        return out;
+    }
+
+    /**
+     * Rough heap footprint of the list and its indexes, kept up to date on every change.
+     * Only meant for comparing lists against a memory budget (see {@link WorkspaceCache}).
+     */
+    public synchronized long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Estimated cost of one task: what the store spends on it, plus the identity map entry and
+     * key, the id map entry, one posting per description trigram and one per indexed date.
+     * A paged list keeps an identity hash instead and no trigrams.
+     */
+    private long estimateBytes(Task t) {
+        if (paged) {
+            return tasks.footprintOf(t) + 8 + 16L * t.getDates().size() + 16;
+        }
+        int len = t.getDescription().length();
+        long index = 80 + len + 6L * Math.max(0, len - 2) + 8L * t.getDates().size();
+        return tasks.footprintOf(t) + index + 16;
     }
 
     /** Count how many tasks are marked done. */
@@ -63,48 +468,124 @@ public class TaskList {
     /**
      * Returns true if a task with the same logical identity already exists.
      * Identity is derived from type + normalized description (+ date fields
-     * for deadlines/events). Used to prevent adding near-duplicates.
+     * for deadlines/events), see {@link Task#identityKey()}. Used to prevent
+     * adding near-duplicates. O(1): answered from a hash index, not a scan.
+     */
+    public synchronized boolean containsDuplicate(Task candidate) {
+        String key = candidate.identityKey();
+        if (!paged) {
+            return identities.containsKey(key);
+        }
+        return identities.getOrDefault(key, 0) + loadedWithIdentity(Storage.lineHash(key)) > 0;
+    }
+
+    /** Number of tasks read from the data file whose identity key has the given hash. */
+    private int loadedWithIdentity(long hash) {
+        int i = Arrays.binarySearch(loadedIdentities, hash);
+        if (i < 0) {
+            return 0;
+        }
+        int from = i;
+        while (from > 0 && loadedIdentities[from - 1] == hash) {
+            from--;
+        }
+        int to = i + 1;
+        while (to < loadedIdentities.length && loadedIdentities[to] == hash) {
+            to++;
+        }
+        return to - from;
+    }
+
+    /**
+     * Makes new ids start above every id the given tasks bring along, so that a task without
+     * one (e.g. a line added to the data file by hand) never takes the id of a later task.
      */
-    public boolean containsDuplicate(Task candidate) {
-        String keyB = dupKey(candidate);
-        for (Task t : tasks) {
-            if (dupKey(t).equals(keyB)) return true;
+    private void reserveIds(List<Task> items) {
+        for (Task t : items) {
+            if (t != null && t.getId() >= nextId) {
+                nextId = t.getId() + 1;
+            }
         }
-        return false;
     }
 
     /**
-     * Build a normalized key used for duplicate detection.
-     * For:
-     *  - T: "T|desc"
-     *  - D: "D|desc|by"
-     *  - E: "E|desc|from|to"
-     * Description is lower-cased and trimmed; dates are taken from data string.
+     * Gives the task an id and adds it to every index. A task that carries an id no task in the
+     * list has (one loaded from disk, or put back by undo) keeps it, so ids never change across
+     * restarts; any other gets the next new one.
      */
-    private static String dupKey(Task t) {
-        String[] p = t.toDataString().split("\\s*\\|\\s*");
-        if (p.length < 3) {
-            return t.toDataString().trim();
+    private void index(Task t) {
+        if (t.getId() <= 0 || slots.get(t.getId()) >= 0) {
+            t.setId(nextId);
         }
-        String type = p[0].trim();
-        String desc = p[2].trim().toLowerCase();
+        nextId = Math.max(nextId, t.getId() + 1);
+        addToIndexes(t);
+    }
+
+    private void addToIndexes(Task t) {
+        estimatedBytes += estimateBytes(t);
+        identities.merge(t.identityKey(), 1, TaskList::sumOrNull);
+        if (!paged) {
+            String lc = t.getDescription().toLowerCase();
+            for (int i = 0; i + 3 <= lc.length(); i++) {
+                trigrams.computeIfAbsent(lc.substring(i, i + 3), g -> new IdList()).add(t.getId());
+            }
+        }
+        indexDates(t);
+    }
+
+    private void indexDates(Task t) {
+        for (LocalDate d : t.getDates()) {
+            byDate.computeIfAbsent(d, k -> new IdList()).add(t.getId());
+        }
+        if (t instanceof Deadline && !t.isDone()) {
+            openDeadlines.computeIfAbsent(((Deadline) t).getByDate(), k -> new IdList()).add(t.getId());
+        }
+    }
 
-        switch (type) {
-            case "T":
-                return "T|" + desc;
-            case "D": {
-                String by = (p.length >= 4) ? p[3].trim() : "";
-                return "D|" + desc + "|" + by;
+    /** Adds up identity counts, dropping the entry at zero (a paged list's count may go below it). */
+    private static Integer sumOrNull(Integer a, Integer b) {
+        int sum = a + b;
+        return sum == 0 ? null : sum;
+    }
+
+    private void unindex(Task t) {
+        estimatedBytes -= estimateBytes(t);
+        slots.remove(t.getId());
+        if (paged) {
+            identities.merge(t.identityKey(), -1, TaskList::sumOrNull);
+        } else {
+            identities.computeIfPresent(t.identityKey(), (k, n) -> n == 1 ? null : n - 1);
+        }
+        String lc = paged ? "" : t.getDescription().toLowerCase();
+        for (int i = 0; i + 3 <= lc.length(); i++) {
+            String gram = lc.substring(i, i + 3);
+            if (lc.indexOf(gram) != i) {
+                continue; // repeated trigram: the id was posted once
             }
-            case "E": {
-                String from = (p.length >= 4) ? p[3].trim() : "";
-                String to   = (p.length >= 5) ? p[4].trim() : "";
-                return "E|" + desc + "|" + from + "|" + to;
+            IdList posting = trigrams.get(gram);
+            if (posting != null) {
+                posting.remove(isLive);
+                if (posting.liveCount() == 0) {
+                    trigrams.remove(gram);
+                }
+            }
+        }
+        for (LocalDate d : t.getDates()) {
+            dropPosting(byDate, d, isLive);
+        }
+        if (t instanceof Deadline && !t.isDone()) {
+            dropPosting(openDeadlines, ((Deadline) t).getByDate(), isOpen);
+        }
+    }
+
+    /** Records that one id under {@code date} left the index; {@code live} must already reject it. */
+    private static void dropPosting(TreeMap<LocalDate, IdList> index, LocalDate date, IntPredicate live) {
+        IdList posting = index.get(date);
+        if (posting != null) {
+            posting.remove(live);
+            if (posting.liveCount() == 0) {
+                index.remove(date);
             }
-            default:
-                StringBuilder sb = new StringBuilder(type).append('|').append(desc);
-                for (int i = 3; i < p.length; i++) sb.append('|').append(p[i].trim());
-                return sb.toString();
         }
     }
 
@@ -0,0 +1,313 @@
+package quokka;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable, versioned task store for lists larger than the heap: a task loaded from the data
+ * file stays there, and its slot only holds its record number in a {@link PagedFile}, which
+ * decodes it on demand through a bounded page cache.
+ * <p>
+ * Changes go to an overlay. A task added or edited since the file was read is kept as an object
+ * in its slot; one whose done status was merely toggled keeps its record and a flipped bit, so
+ * marking a whole archive does not bring it onto the heap. Saving writes unchanged lines byte
+ * for byte (see {@link #writeLines}); the saved version then remembers the new file, and
+ * {@link TaskList} switches to a store over that file at its next change, which drops the
+ * overlay.
+ */
+final class TaskPages extends SlotStore<TaskPages.Leaf> {
+
+    /** Up to {@value SlotStore#LEAF} slots. */
+    static final class Leaf {
+        /** Record of each slot in the file, or -1 for a task held in {@code overlay}. */
+        final int[] records = new int[LEAF];
+        /** Bit i set if slot i is done exactly when its record is not. */
+        long flipped;
+        /** Tasks added or edited since the file was read; allocated on first use. */
+        Task[] overlay;
+
+        Leaf() {
+            Arrays.fill(records, -1);
+        }
+
+        Leaf copy() {
+            Leaf c = new Leaf();
+            System.arraycopy(records, 0, c.records, 0, LEAF);
+            c.flipped = flipped;
+            c.overlay = overlay == null ? null : overlay.clone();
+            return c;
+        }
+
+        Task[] overlay() {
+            if (overlay == null) {
+                overlay = new Task[LEAF];
+            }
+            return overlay;
+        }
+    }
+
+    private final PagedFile file;
+    /** The file this version was saved to, once Storage has written it; see {@link #merged}. */
+    private volatile PagedFile savedAs;
+
+    private TaskPages(PagedFile file, Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        super(branches, totals, branchCount, slots, size);
+        this.file = file;
+    }
+
+    /** A new, empty store. */
+    static TaskPages empty() {
+        return new TaskPages(PagedFile.EMPTY, new Branch[4], new int[4], 0, 0, 0);
+    }
+
+    /** A store holding every record of {@code file} in order, slot {@code i} for record {@code i}. */
+    static TaskPages over(PagedFile file) {
+        int n = file.size();
+        if (n == 0) {
+            return new TaskPages(file, new Branch[4], new int[4], 0, 0, 0);
+        }
+        int count = (n + SPAN - 1) / SPAN;
+        Branch[] bs = new Branch[count];
+        int[] tot = new int[count];
+        for (int b = 0; b < count; b++) {
+            bs[b] = new Branch(new Object[LEAF], new long[LEAF]);
+            tot[b] = Math.min(n, (b + 1) * SPAN);
+        }
+        for (int slot = 0; slot < n; slot++) {
+            Branch branch = bs[slot / SPAN];
+            int j = (slot / LEAF) % LEAF;
+            if (branch.leaves[j] == null) {
+                branch.leaves[j] = new Leaf();
+            }
+            ((Leaf) branch.leaves[j]).records[slot & (LEAF - 1)] = slot;
+            branch.live[j] |= 1L << (slot & (LEAF - 1));
+        }
+        return new TaskPages(file, bs, tot, count, n, n);
+    }
+
+    @Override
+    public TaskPages emptyCopy() {
+        return empty();
+    }
+
+    /** A task read from the file costs its offset, id and record number; added ones cost more until saved. */
+    @Override
+    public long footprintOf(Task t) {
+        return 16;
+    }
+
+    /** The file read by this version (not the one it was saved to). */
+    PagedFile file() {
+        return file;
+    }
+
+    /** Live tasks held in the overlay or with a flipped done status, i.e. changed since the file was read. */
+    int changed() {
+        int n = 0;
+        for (int b = 0; b < branchCount; b++) {
+            Branch src = branches[b];
+            for (int j = 0; j < LEAF; j++) {
+                long bits = src.live[j];
+                while (bits != 0) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    Leaf leaf = leafAt(src, j);
+                    if (leaf.records[i] < 0 || (leaf.flipped & (1L << i)) != 0) {
+                        n++;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Tasks whose description contains the lower-case {@code keyword}, in list order, at most
+     * {@code limit}. Lines of records are first checked for the keyword as raw bytes, so only
+     * likely matches are decoded.
+     */
+    List<Task> find(String keyword, int limit) {
+        byte[] needle = isAscii(keyword) ? keyword.getBytes(StandardCharsets.US_ASCII) : null;
+        PagedFile.Cursor cursor = file.cursor();
+        List<Task> out = new ArrayList<>();
+        for (int b = 0; b < branchCount; b++) {
+            Branch src = branches[b];
+            for (int j = 0; j < LEAF; j++) {
+                long bits = src.live[j];
+                while (bits != 0 && out.size() < limit) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    Leaf leaf = leafAt(src, j);
+                    if (needle != null && leaf.records[i] >= 0) {
+                        cursor.seek(leaf.records[i]);
+                        if (!cursor.mayContain(needle)) {
+                            continue;
+                        }
+                    }
+                    Task t = getSlot(leaf, i);
+                    if (t.getDescription().toLowerCase().contains(keyword)) {
+                        out.add(t);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the data line of every task in order, each followed by the platform line separator.
+     * Lines of unchanged records are copied from the file without decoding them. Fills in where
+     * each line starts (then the total length), the id of each task and which ones are done.
+     *
+     * @param offsets room for {@code size() + 1} offsets
+     * @param ids room for {@code size()} ids
+     */
+    void writeLines(OutputStream out, long[] offsets, int[] ids, BitSet done) throws IOException {
+        byte[] newline = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        PagedFile.Cursor cursor = file.cursor();
+        long pos = 0;
+        int k = 0;
+        for (int b = 0; b < branchCount; b++) {
+            Branch src = branches[b];
+            for (int j = 0; j < LEAF; j++) {
+                long bits = src.live[j];
+                while (bits != 0) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    Leaf leaf = leafAt(src, j);
+                    int r = leaf.records[i];
+                    offsets[k] = pos;
+                    if (doneInSlot(leaf, i)) {
+                        done.set(k);
+                    }
+                    ids[k++] = idInSlot(leaf, i);
+                    if (r >= 0 && (leaf.flipped & (1L << i)) == 0 && file.verbatim(r)) {
+                        cursor.seek(r);
+                        pos += cursor.copyTo(out);
+                    } else {
+                        byte[] line = Storage.dataLine(getSlot(leaf, i)).getBytes(StandardCharsets.UTF_8);
+                        out.write(line);
+                        pos += line.length;
+                    }
+                    out.write(newline);
+                    pos += newline.length;
+                }
+            }
+        }
+        offsets[k] = pos;
+    }
+
+    /** Remembers that this version's tasks are now, in order, the records of {@code saved}. */
+    void saved(PagedFile saved) {
+        savedAs = saved;
+    }
+
+    /** The same tasks read from the file this version was saved to, or null if it was not saved. */
+    TaskPages merged() {
+        PagedFile saved = savedAs;
+        return saved == null ? null : over(saved);
+    }
+
+    @Override
+    Leaf newLeaf() {
+        return new Leaf();
+    }
+
+    @Override
+    Leaf copyLeaf(Leaf leaf) {
+        return leaf.copy();
+    }
+
+    /**
+     * Keeps the record in the slot if {@code t} is that record's task with, at most, the other
+     * done status; anything else goes to the overlay.
+     */
+    @Override
+    void setSlot(Leaf leaf, int i, Task t) {
+        long bit = 1L << i;
+        int r = leaf.records[i];
+        if (r >= 0) {
+            Task stored = file.task(r);
+            if (t.getId() == stored.getId() && t.getType() == stored.getType()
+                    && t.getDescription().equals(stored.getDescription()) && t.getDates().equals(stored.getDates())) {
+                leaf.flipped = t.isDone() == stored.isDone() ? leaf.flipped & ~bit : leaf.flipped | bit;
+                return;
+            }
+            leaf.records[i] = -1;
+        }
+        if ((leaf.flipped & bit) != 0) {
+            leaf.flipped &= ~bit;
+        }
+        leaf.overlay()[i] = t;
+    }
+
+    @Override
+    Task getSlot(Leaf leaf, int i) {
+        int r = leaf.records[i];
+        if (r < 0) {
+            return leaf.overlay[i];
+        }
+        Task t = file.task(r);
+        if ((leaf.flipped & (1L << i)) != 0) {
+            Task flipped = t.withDone(!t.isDone());
+            flipped.setId(t.getId());
+            return flipped;
+        }
+        return t;
+    }
+
+    @Override
+    int idInSlot(Leaf leaf, int i) {
+        int r = leaf.records[i];
+        return r < 0 ? leaf.overlay[i].getId() : file.id(r);
+    }
+
+    @Override
+    boolean doneInSlot(Leaf leaf, int i) {
+        int r = leaf.records[i];
+        return r < 0 ? leaf.overlay[i].isDone() : file.done(r) != ((leaf.flipped & (1L << i)) != 0);
+    }
+
+    @Override
+    void copySlot(Leaf src, int from, Leaf dst, int to) {
+        dst.records[to] = src.records[from];
+        long bit = 1L << to;
+        dst.flipped = (src.flipped & (1L << from)) != 0 ? dst.flipped | bit : dst.flipped & ~bit;
+        Task t = src.overlay == null ? null : src.overlay[from];
+        if (t != null) {
+            dst.overlay()[to] = t;
+        } else if (dst.overlay != null) {
+            dst.overlay[to] = null;
+        }
+    }
+
+    /** A dead record slot holds nothing worth releasing; a dead overlay slot lets go of its task. */
+    @Override
+    Leaf clearSlot(Leaf leaf, int i) {
+        if (leaf.overlay == null || leaf.overlay[i] == null) {
+            return leaf;
+        }
+        Leaf copy = leaf.copy();
+        copy.overlay[i] = null;
+        return copy;
+    }
+
+    @Override
+    TaskPages withStructure(Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        return new TaskPages(file, branches, totals, branchCount, slots, size);
+    }
+}
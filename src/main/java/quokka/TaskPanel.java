@@ -0,0 +1,61 @@
+package quokka;
+
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+/**
+ * Side panel listing every task. The ListView is backed directly by a {@link TaskRows}
+ * view, so only the visible rows are ever formatted and re-sorting just swaps the
+ * permutation. Use from the JavaFX application thread.
+ */
+class TaskPanel extends VBox {
+    private final ListView<Task> list = new ListView<>();
+    private final ComboBox<TaskRows.Order> sort = new ComboBox<>(FXCollections.observableArrayList(TaskRows.Order.values()));
+    private final Label count = new Label();
+    private List<Task> tasks = List.of();
+    private TaskRows rows = TaskRows.of(tasks, TaskRows.Order.LIST);
+
+    TaskPanel() {
+        super(8);
+        getStyleClass().add("task-panel");
+        setPadding(new Insets(8, 0, 12, 12));
+        setPrefWidth(320);
+
+        sort.setValue(TaskRows.Order.LIST);
+        sort.setOnAction(e -> show(tasks));
+        count.getStyleClass().add("task-count");
+        HBox bar = new HBox(8, count, sort);
+        HBox.setHgrow(count, Priority.ALWAYS);
+        count.setMaxWidth(Double.MAX_VALUE);
+
+        list.getStyleClass().add("task-list");
+        list.setFixedCellSize(28);
+        list.setCellFactory(v -> new ListCell<>() {
+            @Override
+            protected void updateItem(Task t, boolean empty) {
+                super.updateItem(t, empty);
+                // Formatted here, per visible cell, rather than for the whole list up front.
+                setText(empty || t == null ? null : (rows.position(getIndex()) + 1) + ". " + t);
+            }
+        });
+        VBox.setVgrow(list, Priority.ALWAYS);
+        getChildren().addAll(bar, list);
+    }
+
+    /** Show an immutable snapshot of the task list; it is kept, not copied. */
+    void show(List<Task> snapshot) {
+        tasks = snapshot;
+        rows = TaskRows.of(snapshot, sort.getValue());
+        list.setItems(FXCollections.observableList(rows));
+        count.setText(snapshot.size() + (snapshot.size() == 1 ? " task" : " tasks"));
+    }
+}
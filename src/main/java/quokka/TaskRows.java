@@ -0,0 +1,94 @@
+package quokka;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only, optionally re-ordered view over a task list snapshot, used as the
+ * backing list of the GUI task panel.
+ * <p>
+ * Sorting never moves tasks: it computes an {@code int[]} permutation from packed
+ * {@code long} keys ({@code key << 32 | position}), which sorts without boxing and
+ * keeps equal keys in list order.
+ */
+public final class TaskRows extends AbstractList<Task> implements RandomAccess {
+
+    /** Orders offered by the task panel. */
+    public enum Order {
+        LIST("List order"), TYPE("Type"), DONE("Not done first"), DATE("Date");
+
+        private final String label;
+
+        Order(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final List<Task> tasks;
+    /** Row -> position in {@code tasks}; null for list order. */
+    private final int[] order;
+
+    private TaskRows(List<Task> tasks, int[] order) {
+        this.tasks = tasks;
+        this.order = order;
+    }
+
+    /** View {@code tasks} (not copied; pass a snapshot such as {@link TaskList#view()}) in the given order. */
+    public static TaskRows of(List<Task> tasks, Order by) {
+        return new TaskRows(tasks, by == Order.LIST ? null : permutation(tasks, by));
+    }
+
+    @Override
+    public Task get(int row) {
+        return tasks.get(position(row));
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    /** 0-based position in the task list of the task shown in {@code row}, for mark/delete numbers. */
+    public int position(int row) {
+        return order == null ? row : order[row];
+    }
+
+    static int[] permutation(List<Task> tasks, Order by) {
+        long[] keys = new long[tasks.size()];
+        int i = 0;
+        for (Task t : tasks) {
+            keys[i] = ((long) sortKey(t, by) << 32) | i;
+            i++;
+        }
+        Arrays.sort(keys);
+        int[] perm = new int[keys.length];
+        for (int j = 0; j < keys.length; j++) {
+            perm[j] = (int) keys[j];
+        }
+        return perm;
+    }
+
+    /** Non-negative key; smaller sorts first. */
+    private static int sortKey(Task t, Order by) {
+        switch (by) {
+            case TYPE:
+                return t.getType().ordinal();
+            case DONE:
+                return t.isDone() ? 1 : 0;
+            case DATE:
+                // Undated tasks go last; epoch days are offset to stay non-negative.
+                List<LocalDate> dates = t.getDates();
+                return dates.isEmpty() ? Integer.MAX_VALUE : (int) (dates.get(0).toEpochDay() + (1 << 30));
+            default:
+                return 0;
+        }
+    }
+}
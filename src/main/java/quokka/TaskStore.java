@@ -0,0 +1,69 @@
+package quokka;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable, versioned sequence of tasks behind a {@link TaskList}; each "mutation" returns
+ * a new version. Versions form a single line: only the latest one may be changed.
+ * <p>
+ * Besides its position, every task has a slot: a physical address that stays the same
+ * while other tasks are added or removed, until the store is compacted.
+ * <p>
+ * {@link TaskVector} keeps the task objects themselves. {@link TaskColumns} keeps their
+ * fields in primitive arrays and hands out a fresh task view on every access, trading
+ * allocation on reads for a much smaller footprint. {@link TaskPages} leaves loaded tasks in
+ * the data file and reads them back on demand.
+ */
+interface TaskStore extends List<Task>, RandomAccess {
+
+    /** New version with {@code t} appended. Only valid on the latest version. */
+    TaskStore append(Task t);
+
+    /** New version with the task at {@code index} replaced. */
+    TaskStore replace(int index, Task t);
+
+    /** New version without the task at {@code index}. */
+    TaskStore removeAt(int index);
+
+    /** New version with every task at a position in {@code at} replaced by {@code f} of it. */
+    TaskStore replaceAt(BitSet at, UnaryOperator<Task> f);
+
+    /** New, compacted version without the tasks at the positions in {@code at}. */
+    TaskStore removeAt(BitSet at);
+
+    /**
+     * New, compacted version with {@code items} inserted so that they end up, in order, at the
+     * (ascending) positions in {@code at}; the inverse of {@link #removeAt(BitSet)}.
+     */
+    TaskStore insertAt(BitSet at, List<Task> items);
+
+    /** New, compacted version with the {@code count} tasks from {@code from} on replaced by {@code items}. */
+    TaskStore splice(int from, int count, List<Task> items);
+
+    /** Id of the task at {@code index}, without materializing it. */
+    int idAt(int index);
+
+    /** Slots handed out so far, including those of removed tasks. */
+    int slotCount();
+
+    /** The task in a live {@code slot}. */
+    Task getSlot(int slot);
+
+    /** Whether the task in a live {@code slot} is done, without materializing it. */
+    boolean isDoneInSlot(int slot);
+
+    /** Current position of the task in a live {@code slot}. */
+    int positionOf(int slot);
+
+    /** Same tasks without the slots of removed ones; afterwards the slot of each task is its position. */
+    TaskStore compact();
+
+    /** A new, empty store of the same kind. */
+    TaskStore emptyCopy();
+
+    /** Estimated heap bytes this store spends on holding {@code t}, for {@link TaskList#estimatedBytes}. */
+    long footprintOf(Task t);
+}
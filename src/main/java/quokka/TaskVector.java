@@ -0,0 +1,92 @@
+package quokka;
+
+/**
+ * Immutable list of task objects; each "mutation" returns a new version sharing structure
+ * with the old one (see {@link SlotStore} for the layout). A leaf is an array of
+ * {@value SlotStore#LEAF} task references; deleted slots are cleared so the task can be
+ * collected.
+ */
+final class TaskVector extends SlotStore<Task[]> {
+
+    private TaskVector(Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        super(branches, totals, branchCount, slots, size);
+    }
+
+    /** A new, empty vector (never shared: appends fill its spare capacity in place). */
+    static TaskVector empty() {
+        return new TaskVector(new Branch[4], new int[4], 0, 0, 0);
+    }
+
+    @Override
+    public TaskVector append(Task t) {
+        return (TaskVector) super.append(t);
+    }
+
+    @Override
+    public TaskVector replace(int index, Task t) {
+        return (TaskVector) super.replace(index, t);
+    }
+
+    @Override
+    public TaskVector removeAt(int index) {
+        return (TaskVector) super.removeAt(index);
+    }
+
+    @Override
+    public TaskVector emptyCopy() {
+        return empty();
+    }
+
+    /** The task object, its description string, its dates and the slot referencing it. */
+    @Override
+    public long footprintOf(Task t) {
+        return 80 + t.getDescription().length() + 24L * t.getDates().size();
+    }
+
+    @Override
+    Task[] newLeaf() {
+        return new Task[LEAF];
+    }
+
+    @Override
+    Task[] copyLeaf(Task[] leaf) {
+        return leaf.clone();
+    }
+
+    @Override
+    void setSlot(Task[] leaf, int i, Task t) {
+        leaf[i] = t;
+    }
+
+    @Override
+    Task getSlot(Task[] leaf, int i) {
+        return leaf[i];
+    }
+
+    @Override
+    int idInSlot(Task[] leaf, int i) {
+        return leaf[i].getId();
+    }
+
+    @Override
+    boolean doneInSlot(Task[] leaf, int i) {
+        return leaf[i].isDone();
+    }
+
+    @Override
+    void copySlot(Task[] src, int from, Task[] dst, int to) {
+        dst[to] = src[from];
+    }
+
+    @Override
+    Task[] clearSlot(Task[] leaf, int i) {
+        Task[] copy = leaf.clone();
+        copy[i] = null;
+        return copy;
+    }
+
+    @Override
+    TaskVector withStructure(Branch[] branches, int[] totals, int branchCount, int slots, int size) {
+        return new TaskVector(branches, totals, branchCount, slots, size);
+    }
+}
@@ -11,6 +11,11 @@ public class Todo extends Task {
         super(description, TaskType.TODO, isDone);
     }
 
+    @Override
+    public Task withDone(boolean done) {
+        return new Todo(description, done);
+    }
+
     @Override
     public String toDataString() {
         return "T | " + (isDone ? "1" : "0") + " | " + description;
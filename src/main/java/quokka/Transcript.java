@@ -0,0 +1,74 @@
+package quokka;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Bounded message model behind the GUI chat view.
+ * <p>
+ * At most {@code capacity} messages are kept in memory. Once the list grows a tenth
+ * past that, the oldest messages are appended to {@code spillFile} in one write and
+ * dropped, so the view only ever holds a bounded number of items.
+ * Not thread-safe; use it from the JavaFX application thread.
+ */
+public class Transcript {
+    private final ObservableList<ChatMessage> messages = FXCollections.observableArrayList();
+    private final int capacity;
+    private final int slack;
+    private final Path spillFile;
+
+    /**
+     * @param capacity messages to keep in memory (at least 1)
+     * @param spillFile where older messages are appended, or null to discard them
+     */
+    public Transcript(int capacity, Path spillFile) {
+        this.capacity = Math.max(1, capacity);
+        this.slack = Math.max(1, this.capacity / 10);
+        this.spillFile = spillFile;
+    }
+
+    /** Live list for a ListView; do not modify it directly. */
+    public ObservableList<ChatMessage> messages() {
+        return messages;
+    }
+
+    public void add(ChatMessage message) {
+        messages.add(message);
+        if (messages.size() >= capacity + slack) {
+            spill(messages.size() - capacity);
+        }
+    }
+
+    /** Spill everything to disk and empty the view. */
+    public void clear() {
+        spill(messages.size());
+    }
+
+    private void spill(int count) {
+        List<ChatMessage> oldest = messages.subList(0, count);
+        if (spillFile != null && !oldest.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (ChatMessage m : oldest) {
+                sb.append(m.toLogString()).append(System.lineSeparator());
+            }
+            try {
+                Path parent = spillFile.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.writeString(spillFile, sb, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Warning: could not save chat history: " + e.getMessage());
+            }
+        }
+        oldest.clear();
+    }
+}
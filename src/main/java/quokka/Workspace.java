@@ -0,0 +1,90 @@
+package quokka;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One named task list and the data file behind it: the loaded {@link TaskList}, the
+ * {@link Flusher} that persists its mutations, its undo {@link History} and the stats of
+ * the load that filled it.
+ */
+final class Workspace {
+    final String name;
+    final Path file;
+    final TaskList tasks;
+    final Flusher flusher;
+    final History history;
+    /** Stats of the initial load, or null if it failed. */
+    final LoadStats loadStats;
+    /** Watches the data file for edits by other programs; null unless hot reload is on. */
+    private Closeable watcher;
+
+    private Workspace(String name, Path file, TaskList tasks, Flusher flusher, History history,
+            LoadStats loadStats) {
+        this.name = name;
+        this.file = file;
+        this.tasks = tasks;
+        this.flusher = flusher;
+        this.history = history;
+        this.loadStats = loadStats;
+    }
+
+    /**
+     * Loads the workspace stored in {@code file}, creating folders/files if missing and
+     * skipping malformed lines. A failed load is reported on stderr and leaves the list empty.
+     * With hot reload on (and the store not paged), {@code onExternalChange} is then called
+     * (on a watcher thread) whenever the file changes on disk.
+     *
+     * @param undoDepth most changes that {@code undo} can revert
+     * @param lock monitor held while the list is mutated, shared with the flusher
+     */
+    static Workspace open(String name, Path file, StorageOptions options, int undoDepth, Object lock,
+            Consumer<Workspace> onExternalChange) {
+        TaskList tasks = options.pagedStore ? TaskList.paged()
+            : options.columnarStore ? TaskList.columnar() : new TaskList();
+        Flusher flusher = new Flusher(file, options, lock, tasks::view);
+        boolean watched = options.hotReload && !options.pagedStore;
+        if (watched) {
+            Storage.track(file);
+        }
+        LoadStats stats = null;
+        try {
+            if (options.pagedStore) {
+                stats = Storage.loadPaged(file, tasks);
+            } else {
+                List<Task> loaded = new ArrayList<>();
+                stats = Storage.load(file, loaded);
+                tasks.addAll(loaded);
+            }
+        } catch (DukeException e) {
+            System.err.println("Warning: failed to load tasks: " + e.getMessage());
+        }
+        Workspace w = new Workspace(name, file, tasks, flusher, new History(undoDepth), stats);
+        if (watched) {
+            try {
+                w.watcher = Storage.watch(file, () -> onExternalChange.accept(w));
+            } catch (DukeException e) {
+                System.err.println("Warning: " + e.getMessage());
+            }
+        }
+        return w;
+    }
+
+    /** Stops watching the data file; later edits by other programs are no longer picked up. */
+    synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println("Warning: " + e.getMessage());
+        }
+        watcher = null;
+        Storage.untrack(file);
+    }
+}
@@ -0,0 +1,111 @@
+package quokka;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Loaded workspaces in least-recently-used order, bounded by an estimate of their heap
+ * footprint ({@link TaskList#estimatedBytes}).
+ * <p>
+ * A workspace is loaded on first use. Whenever one is touched or has grown, the least
+ * recently used others are dropped until the total fits the budget again. Only workspaces whose flusher
+ * is idle are dropped, so everything they recorded is already on disk and a later reload
+ * sees it; busy ones are skipped and retried on the next access. The workspace being
+ * touched is never dropped, even if it alone exceeds the budget.
+ * <p>
+ * Not thread-safe: callers hold the lock that guards mutations of the workspaces.
+ */
+final class WorkspaceCache {
+    private final long budgetBytes;
+    private final Function<String, Workspace> loader;
+    private final LinkedHashMap<String, Workspace> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param budgetBytes estimated heap the loaded workspaces may use together
+     * @param loader loads a workspace by name on a miss
+     */
+    WorkspaceCache(long budgetBytes, Function<String, Workspace> loader) {
+        this.budgetBytes = budgetBytes;
+        this.loader = loader;
+    }
+
+    /** Returns the named workspace, loading it on a miss, and evicts others if over budget. */
+    Workspace get(String name) {
+        Workspace w = loaded.get(name);
+        if (w != null) {
+            hits++;
+        } else {
+            misses++;
+            w = loader.apply(name);
+            loaded.put(name, w);
+        }
+        trim(w);
+        return w;
+    }
+
+    /** Loaded workspaces, least recently used first. */
+    List<Workspace> loaded() {
+        return new ArrayList<>(loaded.values());
+    }
+
+    /** Counters and current footprint. */
+    Stats stats() {
+        return new Stats(loaded.size(), footprint(), budgetBytes, hits, misses, evictions);
+    }
+
+    /** Drops least recently used workspaces other than {@code keep} while over budget. */
+    void trim(Workspace keep) {
+        long total = footprint();
+        Iterator<Workspace> it = loaded.values().iterator();
+        while (total > budgetBytes && it.hasNext()) {
+            Workspace w = it.next();
+            if (w == keep || !w.flusher.isIdle()) {
+                continue;
+            }
+            total -= w.tasks.estimatedBytes();
+            it.remove();
+            w.flusher.shutdownIdle();
+            w.stopWatching();
+            evictions++;
+        }
+    }
+
+    private long footprint() {
+        long total = 0;
+        for (Workspace w : loaded.values()) {
+            total += w.tasks.estimatedBytes();
+        }
+        return total;
+    }
+
+    /** Point-in-time view of the cache, as shown by {@code stats}. */
+    static final class Stats {
+        public final int loaded;
+        public final long estimatedBytes;
+        public final long budgetBytes;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+        Stats(int loaded, long estimatedBytes, long budgetBytes, long hits, long misses, long evictions) {
+            this.loaded = loaded;
+            this.estimatedBytes = estimatedBytes;
+            this.budgetBytes = budgetBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Workspaces: %d loaded (~%d of %d KiB), %d hits, %d misses, %d evictions",
+                loaded, estimatedBytes / 1024, budgetBytes / 1024, hits, misses, evictions);
+        }
+    }
+}
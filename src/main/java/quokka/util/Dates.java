@@ -10,49 +10,105 @@
 
 package quokka.util;
 
+import java.text.ParsePosition;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
-/** Date helpers: flexible parse + standard format. */
+/**
+ * Date helpers: flexible parse + standard format.
+ * <p>
+ * Formatters and regexes are compiled once. Plain {@code yyyy-MM-dd} input is handled
+ * by a hand-rolled parser, other patterns are pre-screened with
+ * {@link DateTimeFormatter#parseUnresolved} so non-matching ones are rejected without
+ * throwing, and recent successful parses are remembered in small LRU caches.
+ */
 public final class Dates {
     private Dates() {}
 
     private static final DateTimeFormatter OUT_FMT = DateTimeFormatter.ofPattern("MMM d yyyy");
 
+    /** Number of raw strings remembered per parse flavour. */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, LocalDate> FLEXIBLE_CACHE = lruCache();
+    private static final Map<String, LocalDate> STRICT_CACHE = lruCache();
+
+    private static final Pattern ORDINAL_SUFFIX = Pattern.compile("(?i)(\\d{1,2})(st|nd|rd|th)");
+    private static final Pattern MULTI_SPACE = Pattern.compile("\\s{2,}");
+    private static final Pattern TRAILING_HHMM = Pattern.compile("(?i)\\s+(\\d{3,4})$");
+    private static final Pattern TRAILING_CLOCK = Pattern.compile("(?i)\\s+\\d{1,2}:\\d{2}([ap]m)?$");
+    private static final Pattern TRAILING_RANGE = Pattern.compile("(?i)\\s+\\d{1,2}\\s*-\\s*\\d{1,2}\\s*[ap]m$");
+
+    private static final DateTimeFormatter[] FLEXIBLE_FORMATS = ofPatterns(
+        "yyyy-MM-dd",
+        "d/M/uuuu", "d-M-uuuu",
+        "d MMM uuuu", "d MMMM uuuu",
+        "MMM d uuuu", "MMMM d uuuu"
+    );
+    private static final DateTimeFormatter[] FLEXIBLE_NO_YEAR = ofPatterns("MMM d", "MMMM d", "d MMM", "d MMMM");
+
+    private static final DateTimeFormatter[] STRICT_FORMATS = strictPatterns(
+        "uuuu-MM-dd", "d/M/uuuu", "d-M-uuuu", "d.M.uuuu",
+        "uuuu/M/d", "uuuu-M-d", "M/d/uuuu", "d MMM uuuu", "MMM d uuuu"
+    );
+
     /** Parse many human inputs into a LocalDate (throws IllegalArgumentException if fails). */
     public static LocalDate parseFlexibleDate(String raw) {
         if (raw == null) {
             throw new IllegalArgumentException("date is null");
         }
+        // Saved dates are ISO; parsing them directly is cheaper than the shared cache's lock.
+        LocalDate iso = parseIso(raw);
+        if (iso != null) {
+            return iso;
+        }
+        LocalDate cached = FLEXIBLE_CACHE.get(raw);
+        if (cached != null) {
+            return cached;
+        }
+        LocalDate parsed = parseFlexibleUncached(raw);
+        FLEXIBLE_CACHE.put(raw, parsed);
+        return parsed;
+    }
+
+    private static LocalDate parseFlexibleUncached(String raw) {
         String s = raw.trim();
 
-        try { return LocalDate.parse(s); } catch (DateTimeParseException ignored) {}
+        LocalDate iso = parseIso(s);
+        if (iso != null) {
+            return iso;
+        }
+        if (looksIso(s)) {
+            // Out-of-range ISO dates fall through to the lenient patterns below, as before.
+            try { return LocalDate.parse(s); } catch (DateTimeParseException ignored) {}
+        }
 
-        s = s.replaceAll("(?i)(\\d{1,2})(st|nd|rd|th)", "$1").trim().replaceAll("\\s{2,}", " ");
+        s = MULTI_SPACE.matcher(ORDINAL_SUFFIX.matcher(s).replaceAll("$1").trim()).replaceAll(" ");
 
         // strip trailing time-ish parts
-        s = s.replaceFirst("(?i)\\s+(\\d{3,4})$", "");
-        s = s.replaceFirst("(?i)\\s+\\d{1,2}:\\d{2}([ap]m)?$", "");
-        s = s.replaceFirst("(?i)\\s+\\d{1,2}\\s*-\\s*\\d{1,2}\\s*[ap]m$", "");
-
-        String[] patterns = {
-            "yyyy-MM-dd",
-            "d/M/uuuu", "d-M-uuuu",
-            "d MMM uuuu", "d MMMM uuuu",
-            "MMM d uuuu", "MMMM d uuuu"
-        };
-        for (String p : patterns) {
-            try { return LocalDate.parse(s, DateTimeFormatter.ofPattern(p)); }
-            catch (DateTimeParseException ignored) {}
-        }
-
-        String[] noYear = { "MMM d", "MMMM d", "d MMM", "d MMMM" };
-        for (String p : noYear) {
-            try {
-                LocalDate base = LocalDate.parse(s, DateTimeFormatter.ofPattern(p));
+        s = TRAILING_HHMM.matcher(s).replaceFirst("");
+        s = TRAILING_CLOCK.matcher(s).replaceFirst("");
+        s = TRAILING_RANGE.matcher(s).replaceFirst("");
+
+        for (DateTimeFormatter f : FLEXIBLE_FORMATS) {
+            LocalDate d = tryParse(s, f);
+            if (d != null) {
+                return d;
+            }
+        }
+
+        for (DateTimeFormatter f : FLEXIBLE_NO_YEAR) {
+            LocalDate base = tryParse(s, f);
+            if (base != null) {
                 return base.withYear(LocalDate.now().getYear());
-            } catch (DateTimeParseException ignored) {}
+            }
         }
 
         throw new IllegalArgumentException("Unrecognized date format: \"" + raw + "\"");
@@ -73,25 +129,120 @@ public final class Dates {
      */
     public static java.time.LocalDate parseStrictDate(String raw) {
         if (raw == null) throw new IllegalArgumentException("date is null");
+        LocalDate iso = parseIso(raw);
+        if (iso != null) {
+            return iso;
+        }
+        LocalDate cached = STRICT_CACHE.get(raw);
+        if (cached != null) {
+            return cached;
+        }
         String s = raw.trim();
-        java.time.format.ResolverStyle STRICT = java.time.format.ResolverStyle.STRICT;
-
-        String[] patterns = new String[]{
-            "uuuu-MM-dd", "d/M/uuuu", "d-M-uuuu", "d.M.uuuu",
-            "uuuu/M/d", "uuuu-M-d", "M/d/uuuu", "d MMM uuuu", "MMM d uuuu"
-        };
-        for (String p : patterns) {
-            try {
-                java.time.format.DateTimeFormatter f =
-                    new java.time.format.DateTimeFormatterBuilder()
-                        .parseCaseInsensitive()
-                        .appendPattern(p)
-                        .toFormatter()
-                        .withResolverStyle(STRICT);
-                return java.time.LocalDate.parse(s, f);
-            } catch (java.time.format.DateTimeParseException ignored) {}
-        }
-        throw new IllegalArgumentException("Unparseable or invalid calendar date: " + raw);
+        LocalDate parsed = parseIso(s);
+        if (parsed == null && !isIsoShaped(s)) {
+            for (DateTimeFormatter f : STRICT_FORMATS) {
+                parsed = tryParse(s, f);
+                if (parsed != null) {
+                    break;
+                }
+            }
+        }
+        if (parsed == null) {
+            throw new IllegalArgumentException("Unparseable or invalid calendar date: " + raw);
+        }
+        STRICT_CACHE.put(raw, parsed);
+        return parsed;
+    }
+
+    /**
+     * Hand-rolled {@code yyyy-MM-dd} parser.
+     *
+     * @return the date, or null if {@code s} is not exactly that shape or not a real calendar date
+     */
+    public static LocalDate parseIso(String s) {
+        if (!isIsoShaped(s)) {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (month < 1 || month > 12 || day < 1 || day > java.time.Month.of(month).length(java.time.Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /** True for ten characters laid out as dddd-dd-dd. */
+    private static boolean isIsoShaped(String s) {
+        if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (i != 4 && i != 7 && (s.charAt(i) < '0' || s.charAt(i) > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cheap pre-check for input ISO_LOCAL_DATE might accept (e.g. signed or 5+ digit years). */
+    private static boolean looksIso(String s) {
+        int dash = s.indexOf('-', 1);
+        return dash >= 4 && s.length() >= 10;
+    }
+
+    private static int digits(String s, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            n = n * 10 + (s.charAt(i) - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Parse {@code s} with {@code f}, returning null instead of throwing when it does not match.
+     * Most mismatches are caught by the unresolved pre-parse, which never throws.
+     */
+    private static LocalDate tryParse(String s, DateTimeFormatter f) {
+        ParsePosition pos = new ParsePosition(0);
+        if (f.parseUnresolved(s, pos) == null || pos.getIndex() != s.length()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(s, f);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static DateTimeFormatter[] ofPatterns(String... patterns) {
+        DateTimeFormatter[] out = new DateTimeFormatter[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            out[i] = DateTimeFormatter.ofPattern(patterns[i]);
+        }
+        return out;
+    }
+
+    private static DateTimeFormatter[] strictPatterns(String... patterns) {
+        DateTimeFormatter[] out = new DateTimeFormatter[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            out[i] = new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(patterns[i])
+                .toFormatter()
+                .withResolverStyle(ResolverStyle.STRICT);
+        }
+        return out;
+    }
+
+    /** Small synchronized LRU map for parse results. */
+    private static Map<String, LocalDate> lruCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, LocalDate>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalDate> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
     }
 
     /**
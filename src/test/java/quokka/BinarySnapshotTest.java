@@ -0,0 +1,73 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private static final StorageOptions BINARY = StorageOptions.defaults().withBinarySnapshot(true);
+
+    private static List<Task> sample() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("submit report ünïcode", "2025-09-10"));
+        tasks.add(new Event("camp", "2025-09-10", "2025-09-12"));
+        tasks.get(1).markAsDone();
+        return tasks;
+    }
+
+    @Test
+    void save_writesMirrorThatLoadsIdentically() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        Storage.save(data, sample(), BINARY);
+        assertTrue(Files.exists(BinarySnapshot.pathFor(data)));
+
+        List<Task> mirrored = BinarySnapshot.readIfCurrent(data);
+        assertNotNull(mirrored);
+        assertEquals(3, mirrored.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sample().get(i).toDataString(), mirrored.get(i).toDataString());
+        }
+        assertEquals(LocalDate.of(2025, 9, 10), ((Deadline) mirrored.get(1)).getByDate());
+    }
+
+    @Test
+    void load_fallsBackToTextAfterHandEdit() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        Storage.save(data, sample(), BINARY);
+        Files.writeString(data, "T | 0 | added by hand\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertNull(BinarySnapshot.readIfCurrent(data));
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(4, loaded.size());
+    }
+
+    @Test
+    void load_ignoresCorruptedMirror() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        Storage.save(data, sample(), BINARY);
+        Path bin = BinarySnapshot.pathFor(data);
+        byte[] bytes = Files.readAllBytes(bin);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(bin, bytes);
+
+        assertNull(BinarySnapshot.readIfCurrent(data));
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(3, loaded.size());
+    }
+}
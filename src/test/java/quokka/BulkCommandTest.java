@@ -0,0 +1,113 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkCommandTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void rangesListsAndKeywords_applyOnceAndSurviveRestart() throws Exception {
+        for (StorageOptions options : List.of(StorageOptions.defaults(),
+                StorageOptions.defaults().withJournal(true),
+                StorageOptions.defaults().withColumnarStore(true).withJournal(true))) {
+            Path file = Files.createTempDirectory(tmpDir, "bulk").resolve("tasks.txt");
+            Quokka q = new Quokka(file.toString(), options);
+            for (int i = 1; i <= 10; i++) {
+                q.process("todo t" + i);
+            }
+            assertEquals("Nice! I've marked 5 tasks as done.", q.process("mark 1-5").message);
+            assertEquals("Nice! I've marked 3 tasks as done.", q.process("mark 7, 9,#10").message);
+            assertEquals("OK, I've marked 1 task as not done yet.", q.process("unmark 2,2").message);
+            if (options.journaled) {
+                List<String> journal = Files.readAllLines(file.resolveSibling("tasks.txt.journal"));
+                assertEquals("UNMARK | 1", journal.get(journal.size() - 1), "one record per command");
+                assertEquals("MARK | 6,8-9", journal.get(journal.size() - 2));
+            }
+            assertEquals("Noted. I've removed 7 tasks.\nNow you have 3 tasks in the list.",
+                q.process("delete done").message);
+            assertEquals("No tasks match 'done'.", q.process("delete done").message);
+            assertEquals("All 3 tasks are already not done.", q.process("unmark all").message);
+            assertFalse(q.process("mark 2").error, "single tasks still work");
+            q.close();
+
+            Quokka reopened = new Quokka(file.toString(), options);
+            assertEquals("Here are the tasks in your list:\n1.[T][ ] t2 (#2)\n2.[T][X] t6 (#6)\n3.[T][ ] t8 (#8)",
+                reopened.process("list --ids").message);
+            reopened.close();
+        }
+    }
+
+    @Test
+    void badSelections_areRejectedWithoutChanges() throws Exception {
+        Quokka q = new Quokka(tmpDir.resolve("tasks.txt").toString(), StorageOptions.defaults());
+        q.process("todo a");
+        q.process("todo b");
+        assertEquals("Please write ranges from low to high, e.g. 3-7.", q.process("mark 2-1").message);
+        assertTrue(q.process("delete 1-3").error);
+        assertTrue(q.process("unmark 1,x").error);
+        assertTrue(q.process("mark 1-").error);
+        assertEquals(2, q.snapshotTasks().size());
+        assertFalse(q.snapshotTasks().get(0).isDone());
+        q.close();
+    }
+
+    @Test
+    void tasksAlreadyInThatState_areNotCountedOrUndone() throws Exception {
+        Quokka q = new Quokka(tmpDir.resolve("tasks.txt").toString(), StorageOptions.defaults());
+        q.process("todo a");
+        q.process("todo b");
+        q.process("todo c");
+        q.process("mark 2");
+        assertEquals("That task is already marked as done.", q.process("mark 2-2").message);
+        assertEquals("Nice! I've marked 2 tasks as done.", q.process("mark all").message);
+        assertEquals("All 3 tasks are already marked as done.", q.process("mark all").message);
+        assertEquals("Undone: mark all\nNow you have 3 tasks in the list.", q.process("undo").message,
+            "the no-op does not use up the undo");
+        assertTrue(q.snapshotTasks().get(1).isDone());
+        assertFalse(q.snapshotTasks().get(0).isDone());
+        q.close();
+    }
+
+    @Test
+    void taskList_bulkOpsKeepIdsIndexesAndSnapshots() {
+        for (TaskList tl : List.of(new TaskList(), TaskList.columnar())) {
+            for (int i = 0; i < 10_000; i++) {
+                tl.add(new Todo("job " + i));
+            }
+            List<Task> before = tl.view();
+            BitSet thirds = new BitSet();
+            for (int i = 0; i < 10_000; i += 3) {
+                thirds.set(i);
+            }
+            tl.setDone(thirds, true);
+            assertTrue(tl.get(9_999).isDone());
+            assertFalse(tl.get(9_998).isDone());
+            assertFalse(before.get(9_999).isDone(), "snapshots never change");
+
+            assertEquals(3_334, tl.removeAt(thirds).size());
+            assertEquals(6_666, tl.size());
+            assertEquals(tl.size(), ((TaskStore) tl.view()).slotCount(), "one compaction");
+            assertEquals(10_000, before.size());
+            for (int i = 0; i < tl.size(); i++) {
+                int id = i / 2 * 3 + i % 2 + 2;
+                assertEquals(id, tl.get(i).getId());
+                assertEquals(i, tl.indexOfId(id));
+                assertFalse(tl.get(i).isDone());
+            }
+            assertEquals(-1, tl.indexOfId(1));
+            assertTrue(tl.find("job 9999").isEmpty());
+            assertEquals(1, tl.find("job 9998").size());
+            assertTrue(tl.removeAt(new BitSet()).isEmpty());
+        }
+    }
+}
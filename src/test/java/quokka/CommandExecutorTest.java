@@ -0,0 +1,43 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExecutorTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void commandsApplyInSubmissionOrder() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        CommandExecutor commands = new CommandExecutor(new Quokka(data.toString()));
+        List<CompletableFuture<Reply>> replies = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            replies.add(commands.submit("todo task " + i));
+            replies.add(commands.submit("mark " + i));
+        }
+        for (int i = 0; i < replies.size(); i++) {
+            Reply r = replies.get(i).get(10, TimeUnit.SECONDS);
+            assertFalse(r.error, r.message);
+            if (i % 2 == 0) {
+                assertTrue(r.message.contains("Now you have " + (i / 2 + 1) + " tasks"), r.message);
+            }
+        }
+        commands.close();
+
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(50, loaded.size());
+        assertEquals("task 50", loaded.get(49).getDescription());
+        assertTrue(loaded.stream().allMatch(Task::isDone));
+    }
+}
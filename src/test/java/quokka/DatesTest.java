@@ -45,4 +45,28 @@ class DatesTest {
             Dates.fmt(java.time.LocalDate.of(2025, 9, 10)));
     }
 
+    @Test
+    void parseIso_fastPathRejectsWithoutThrowing() {
+        assertEquals(LocalDate.of(2024, 2, 29), Dates.parseIso("2024-02-29"));
+        assertNull(Dates.parseIso("2023-02-29"));
+        assertNull(Dates.parseIso("2025-13-01"));
+        assertNull(Dates.parseIso("10/9/2025"));
+    }
+
+    @Test
+    void parseFlexibleDate_keepsLenientIsoFallback() {
+        // Out-of-range ISO input still resolves leniently through the pattern table.
+        assertEquals(LocalDate.of(2025, 2, 28), Dates.parseFlexibleDate("2025-02-30"));
+        assertEquals(LocalDate.of(2019, 12, 2), Dates.parseFlexibleDate("2nd/12/2019"));
+        assertEquals(LocalDate.of(2019, 12, 2), Dates.parseFlexibleDate("2nd/12/2019"), "cached result");
+    }
+
+    @Test
+    void parseFlexibleDate_rejectsDatesWithoutAYear() {
+        assertThrows(IllegalArgumentException.class, () -> Dates.parseFlexibleDate("Oct 10"));
+        assertThrows(IllegalArgumentException.class, () -> Dates.parseFlexibleDate("Oct 10"), "failure is not cached");
+        assertThrows(IllegalArgumentException.class, () -> Dates.parseFlexibleDate("4th March"));
+        assertThrows(IllegalArgumentException.class, () -> Dates.parseFlexibleDate("Feb 30"));
+    }
+
 }
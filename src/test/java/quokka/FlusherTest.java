@@ -0,0 +1,68 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlusherTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void groupMode_coalescesUntilFlush() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        Object lock = new Object();
+        Flusher f = new Flusher(data, StorageOptions.defaults()
+            .withDurability(Durability.GROUP).withGroupWindowMs(60_000), lock, () -> tasks);
+
+        synchronized (lock) {
+            for (int i = 0; i < 100; i++) {
+                tasks.add(new Todo("task " + i));
+                f.persist(Storage.addRecord(tasks.get(i)));
+            }
+        }
+        assertTrue(f.hasPending());
+        assertFalse(Files.exists(data), "nothing should be written inside the window");
+
+        f.close();
+
+        assertFalse(f.hasPending());
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(100, loaded.size());
+    }
+
+    @Test
+    void asyncJournal_flushWritesAllRecordsInOrder() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        Object lock = new Object();
+        Flusher f = new Flusher(data, StorageOptions.defaults()
+            .withJournal(true).withDurability(Durability.ASYNC), lock, () -> tasks);
+
+        for (int i = 0; i < 50; i++) {
+            synchronized (lock) {
+                tasks.add(new Todo("task " + i));
+                f.persist(Storage.addRecord(tasks.get(i)));
+            }
+        }
+        synchronized (lock) {
+            tasks.remove(0);
+            f.persist(Storage.indexRecord(Storage.REC_DELETE, 0));
+        }
+        f.close();
+
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(49, loaded.size());
+        assertEquals("task 1", loaded.get(0).getDescription());
+    }
+}
@@ -0,0 +1,179 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotReloadTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void readExternalChange_parsesOnlyTheEditedLines() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Storage.track(file);
+        try {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) {
+                Todo t = new Todo("task " + i);
+                t.setId(i);
+                tasks.add(t);
+            }
+            Storage.save(file, tasks);
+            assertNull(Storage.readExternalChange(file), "own writes are not external changes");
+
+            List<String> lines = new ArrayList<>(Files.readAllLines(file));
+            lines.set(2, "#3 | T | 1 | task three");
+            lines.add(3, "");
+            lines.add(4, "T | 0 | inserted");
+            lines.add(5, "not a task");
+            Files.write(file, lines);
+            Storage.ExternalChange c = Storage.readExternalChange(file);
+            assertEquals(2, c.from);
+            assertEquals(1, c.removed);
+            assertEquals(2, c.added.size());
+            assertEquals("[T][X] task three", c.added.get(0).toString());
+            assertEquals(3, c.added.get(0).getId());
+            assertEquals("lines 3-5", c.where(), "the malformed line 6 is not a task line");
+            assertNull(Storage.readExternalChange(file), "each change is reported once");
+
+            lines.remove("not a task");
+            lines.remove(0);
+            Files.write(file, lines);
+            c = Storage.readExternalChange(file);
+            assertEquals(0, c.from);
+            assertEquals(1, c.removed);
+            assertTrue(c.added.isEmpty());
+            assertEquals("1 line deleted before line 1", c.where());
+        } finally {
+            Storage.untrack(file);
+        }
+    }
+
+    @Test
+    void editsByOtherPrograms_areAppliedToTheRunningList() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Quokka q = new Quokka(file.toString(), StorageOptions.defaults().withHotReload(true));
+        List<String> reports = new CopyOnWriteArrayList<>();
+        q.setReloadListener(reports::add);
+        q.process("todo apple");
+        q.process("todo banana");
+        q.process("todo cherry");
+        List<String> lines = new ArrayList<>(Files.readAllLines(file));
+        lines.set(1, "#2 | T | 1 | banana bread");
+        lines.add(2, "T | 0 | from a script");
+        Files.write(file, lines);
+
+        await(() -> q.snapshotTasks().size() == 4);
+        await(() -> !reports.isEmpty());
+        assertEquals(List.of("Reloaded tasks.txt: lines 2-3 changed by another program."), reports);
+        assertEquals("Here are the tasks in your list:\n1.[T][ ] apple (#1)\n2.[T][X] banana bread (#2)"
+            + "\n3.[T][ ] from a script (#4)\n4.[T][ ] cherry (#3)", q.process("list --ids").message);
+        assertEquals(1, q.snapshotTasks().stream().filter(t -> t.getDescription().contains("bread")).count());
+        assertTrue(q.process("find bread").message.contains("banana bread"), "indexes follow the edit");
+        assertTrue(q.process("undo").error, "history does not reach across a reload");
+
+        q.process("delete 1");
+        assertEquals(List.of("#2 | T | 1 | banana bread", "#4 | T | 0 | from a script", "#3 | T | 0 | cherry"),
+            Files.readAllLines(file));
+        q.close();
+    }
+
+    @Test
+    void lineInsertedByAnotherProgram_keepsListOrderAndIdsAcrossRestarts() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Files.write(file, List.of("#1 | T | 0 | apple one", "#2 | T | 0 | apple two", "#3 | T | 0 | gamma"));
+        StorageOptions options = StorageOptions.defaults().withHotReload(true);
+        Quokka q = new Quokka(file.toString(), options);
+        Files.write(file, List.of("#1 | T | 0 | apple one", "T | 0 | apple inserted", "#2 | T | 0 | apple two",
+            "#3 | T | 0 | gamma"));
+        await(() -> q.snapshotTasks().size() == 4);
+        assertEquals("Here are the matching tasks in your list:\n1.[T][ ] apple one\n2.[T][ ] apple inserted"
+            + "\n3.[T][ ] apple two", q.process("find apple").message);
+        q.close();
+
+        Quokka reopened = new Quokka(file.toString(), options);
+        assertEquals("Here are the tasks in your list:\n1.[T][ ] apple one (#1)\n2.[T][ ] apple inserted (#4)"
+            + "\n3.[T][ ] apple two (#2)\n4.[T][ ] gamma (#3)", reopened.process("list --ids").message);
+        assertFalse(reopened.process("mark #2").error);
+        assertTrue(reopened.snapshotTasks().get(2).isDone());
+        reopened.close();
+    }
+
+    @Test
+    void unsavedChanges_mergeWithOrWinOverExternalEdits() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Files.write(file, List.of("#1 | T | 0 | apple", "#2 | T | 0 | banana", "#3 | T | 0 | cherry"));
+        StorageOptions options = StorageOptions.defaults().withJournal(true).withHotReload(true);
+        Quokka q = new Quokka(file.toString(), options);
+        Workspace w = q.loadedWorkspaces().get(0);
+
+        // Journaled, not yet in tasks.txt: marking banana conflicts with renaming it there.
+        q.process("mark 2");
+        Files.write(file, List.of("#1 | T | 0 | apple", "#2 | T | 0 | banana split", "#3 | T | 0 | cherry"));
+        await(() -> !Storage.hasJournal(file));
+        assertEquals(List.of("#1 | T | 0 | apple", "#2 | T | 1 | banana", "#3 | T | 0 | cherry"),
+            Files.readAllLines(file), "this session's version is kept and written");
+        assertNull(q.reload(w));
+
+        // A change elsewhere in the file is merged with the unsaved one.
+        q.process("todo durian");
+        Files.write(file, List.of("#1 | T | 0 | green apple", "#2 | T | 1 | banana", "#3 | T | 0 | cherry"));
+        await(() -> q.snapshotTasks().get(0).getDescription().equals("green apple"));
+        await(() -> !Storage.hasJournal(file));
+        assertEquals(List.of("#1 | T | 0 | green apple", "#2 | T | 1 | banana", "#3 | T | 0 | cherry",
+            "#4 | T | 0 | durian"), Files.readAllLines(file));
+        q.close();
+
+        Quokka reopened = new Quokka(file.toString(), options);
+        assertEquals(4, reopened.snapshotTasks().size());
+        reopened.close();
+    }
+
+    @Test
+    void malformedLine_isNotMistakenForAnExternalEdit() throws Exception {
+        for (boolean journal : new boolean[] {false, true}) {
+            Path file = tmpDir.resolve("tasks-" + journal + ".txt");
+            Files.write(file, List.of("T | 0 | one", "garbage line", "T | 0 | two"));
+            Quokka q = new Quokka(file.toString(),
+                StorageOptions.defaults().withJournal(journal).withHotReload(true));
+            List<String> reports = new CopyOnWriteArrayList<>();
+            q.setReloadListener(reports::add);
+            Workspace w = q.loadedWorkspaces().get(0);
+            if (journal) {
+                q.process("mark 1");
+            }
+            // Same bytes, new mtime: only the size/mtime check can tell, and it must not count as an edit.
+            Files.write(file, Files.readAllBytes(file));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+            assertNull(q.reload(w), "journal " + journal);
+            Thread.sleep(200);
+            assertEquals(List.of(), reports, "journal " + journal);
+            assertTrue(Files.readAllLines(file).contains("garbage line"), "the file is not rewritten");
+            if (journal) {
+                assertFalse(q.process("undo").error, "history survives");
+                assertFalse(q.snapshotTasks().get(0).isDone());
+            }
+            q.close();
+        }
+    }
+
+    /** Waits for the watcher thread to act. */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for the watcher");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void histogram_bucketsStayWithinRelativeError() {
+        for (long v : new long[] {0, 1, 31, 32, 33, 1_000, 123_456_789L, Long.MAX_VALUE}) {
+            int b = Histogram.bucketOf(v);
+            long hi = Histogram.highestInBucket(b);
+            assertTrue(hi >= v, "bucket of " + v + " ends at " + hi);
+            assertTrue(hi - v <= Math.max(0, v / 16), "bucket of " + v + " too wide: " + hi);
+            assertTrue(b == 0 || Histogram.highestInBucket(b - 1) < v, "buckets must be contiguous at " + v);
+        }
+    }
+
+    @Test
+    void histogram_percentiles() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1_000L);
+        }
+        Histogram.Snapshot s = h.snapshot();
+        assertEquals(1000, s.count);
+        assertEquals(1_000_000, s.max);
+        assertEquals(500_000, s.p50, 500_000 / 16.0);
+        assertEquals(990_000, s.p99, 990_000 / 16.0);
+        assertEquals(500_500, s.mean, 1e-6);
+    }
+
+    @Test
+    void quokka_countsCommandsPhasesAndBytes() {
+        Quokka q = new Quokka(tmpDir.resolve("tasks.txt").toString());
+        long bytesBefore = Storage.bytesWritten();
+        q.process("todo read book");
+        q.process("todo read book");
+        q.process("mark 9");
+        q.process("frobnicate");
+        Metrics.Snapshot s = q.getMetrics();
+
+        assertEquals(2, s.commands.get("todo").count);
+        assertEquals(1, s.commands.get("todo").errors);
+        assertEquals(1, s.commands.get("mark").errors);
+        assertEquals(1, s.commands.get("other").count);
+        assertEquals(4, s.phases.get(Metrics.Phase.PARSE).count);
+        assertEquals(2, s.phases.get(Metrics.Phase.DUPLICATE_CHECK).count);
+        assertEquals(1, s.phases.get(Metrics.Phase.PERSIST).count);
+        assertTrue(s.storageBytesWritten - bytesBefore >= "T | 0 | read book".length());
+
+        Reply stats = q.process("stats");
+        assertFalse(stats.error);
+        assertTrue(stats.message.contains("todo"), stats.message);
+        assertTrue(stats.message.contains("duplicate_check"), stats.message);
+    }
+}
@@ -0,0 +1,146 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedTaskListTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private static final List<String> SCRIPT = List.of(
+        "list --ids", "find book", "find BOOK --limit 2", "due 2025-09-10", "todo read book",
+        "mark 2-4", "unmark #3", "delete 1", "find café", "undo", "undo", "redo", "list --ids",
+        "deadline essay /by 2025-09-10", "due 2025-09-10", "delete done", "todo book 3",
+        "event camp /from 2025-09-10 /to 2025-09-12", "between 2025-09-09 2025-09-11", "list --ids");
+
+    private static List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            lines.add("#" + i + " | T | " + (i % 7 == 0 ? 1 : 0) + " | book " + i);
+        }
+        lines.set(5, "#6 | D | 0 | return Café book | 2025-09-10");
+        lines.set(9, "#10 | E | 1 | fair | 2025-09-09 | 2025-09-11");
+        return lines;
+    }
+
+    private List<String> run(Path file, StorageOptions options) {
+        Quokka q = new Quokka(file.toString(), options);
+        List<String> out = new ArrayList<>();
+        for (String command : SCRIPT) {
+            out.add(q.process(command).message);
+        }
+        q.close();
+        Quokka reopened = new Quokka(file.toString(), options);
+        out.add(reopened.process("list --ids").message);
+        out.add(reopened.process("todo book 3").message);
+        reopened.close();
+        return out;
+    }
+
+    @Test
+    void pagedList_answersCommandsLikeTheDefaultList() throws Exception {
+        for (boolean journal : new boolean[] {false, true}) {
+            Path plain = tmpDir.resolve("plain-" + journal + ".txt");
+            Path paged = tmpDir.resolve("paged-" + journal + ".txt");
+            Files.write(plain, lines());
+            Files.write(paged, lines());
+            StorageOptions options = StorageOptions.defaults().withJournal(journal);
+            assertEquals(run(plain, options), run(paged, options.withPagedStore(true)), "journal " + journal);
+            assertEquals(Files.readAllLines(plain), Files.readAllLines(paged));
+        }
+    }
+
+    @Test
+    void loadPaged_assignsIdsAndSkipsCorruptLines() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Files.writeString(file, "\uFEFF#5 | T | 0 | read book\r\nnot a task\r\n\r\nT | 1 | no id\r\n"
+            + "#3 | D | 0 | essay | 2025-09-10\r\n#9 | T | 0 | last");
+        TaskList tasks = TaskList.paged();
+        LoadStats stats = Storage.loadPaged(file, tasks);
+        assertEquals(1, stats.skipped);
+        List<String> shown = new ArrayList<>();
+        for (Task t : tasks.view()) {
+            shown.add(t.getId() + " " + t);
+        }
+        assertEquals(List.of("5 [T][ ] read book", "10 [T][X] no id", "3 [D][ ] essay (by: Sep 10 2025)",
+            "9 [T][ ] last"), shown);
+        assertEquals(2, tasks.indexOfId(3));
+        assertEquals(1, tasks.indexOfId(10));
+        assertTrue(tasks.containsDuplicate(new Todo("no id", true)));
+        assertFalse(tasks.containsDuplicate(new Todo("no idea", true)));
+        assertEquals(1, tasks.dueOn(LocalDate.of(2025, 9, 10)).size());
+        assertEquals("[T][ ] read book", tasks.find("BOOK", 10).get(0).toString());
+    }
+
+    @Test
+    void save_copiesUnchangedLinesAndDropsTheOverlay() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        Files.write(file, lines());
+        TaskList tasks = TaskList.paged();
+        Storage.loadPaged(file, tasks);
+        tasks.setDone(0, true);
+        tasks.add(new Todo("new"));
+        assertEquals(2, ((TaskPages) tasks.view()).changed());
+
+        Storage.save(file, tasks.view());
+        List<String> saved = Files.readAllLines(file);
+        assertEquals("#1 | T | 1 | book 1", saved.get(0));
+        assertEquals("#301 | T | 0 | new", saved.get(saved.size() - 1));
+        tasks.setDone(1, true);
+        assertEquals(1, ((TaskPages) tasks.view()).changed(), "the saved changes are read from the new file");
+        assertEquals("[T][X] book 1", tasks.get(0).toString());
+        assertEquals("[T][ ] new", tasks.get(tasks.size() - 1).toString());
+    }
+
+    @Test
+    void storeProperty_choosesTheStore() {
+        try {
+            System.setProperty("quokka.store", "paged");
+            StorageOptions paged = StorageOptions.defaults().withColumnarStore(true).withStoreFromProperties();
+            assertTrue(paged.pagedStore);
+            assertFalse(paged.columnarStore);
+            System.setProperty("quokka.store", "columnar");
+            assertTrue(StorageOptions.defaults().withStoreFromProperties().columnarStore);
+            System.setProperty("quokka.store", "mmap");
+            assertFalse(StorageOptions.defaults().withStoreFromProperties().pagedStore);
+        } finally {
+            System.clearProperty("quokka.store");
+        }
+        StorageOptions unset = StorageOptions.defaults().withPagedStore(true).withStoreFromProperties();
+        assertTrue(unset.pagedStore);
+    }
+
+    @Test
+    void pageCache_staysBounded() throws Exception {
+        Path file = tmpDir.resolve("tasks.txt");
+        List<String> lines = new ArrayList<>();
+        long[] offsets = new long[5_001];
+        int[] ids = new int[5_000];
+        for (int i = 0; i < 5_000; i++) {
+            lines.add("#" + (i + 1) + " | T | 0 | task " + (i + 1));
+            offsets[i + 1] = offsets[i] + lines.get(i).length() + System.lineSeparator().length();
+            ids[i] = i + 1;
+        }
+        Files.write(file, lines);
+        PagedFile pages = new PagedFile(file, offsets, ids, ids.length, null, new BitSet(), 3);
+        for (int r = 0; r < pages.size(); r += 7) {
+            assertEquals("task " + (r + 1), pages.task(r).getDescription());
+            assertTrue(pages.cachedPages() <= 3);
+        }
+
+        TaskList tasks = TaskList.paged();
+        Storage.loadPaged(file, tasks);
+        assertEquals(List.of(), tasks.find("task 50000", 10));
+        assertEquals(12, tasks.find("task 50", 100).size());
+    }
+}
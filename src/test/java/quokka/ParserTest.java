@@ -32,4 +32,32 @@ class ParserTest {
         String[] p2 = Parser.splitOnce("desc only", " /by ");
         assertArrayEquals(new String[]{"desc only", ""}, p2);
     }
+
+    @Test
+    void parse_splitsKnownFlagsInOnePass() {
+        ParsedCommand pc = Parser.parse("\u00A0event  team\tsync /from 2025-01-01 \u00A0/to 2025-01-02 ");
+        assertEquals("event", pc.command());
+        assertEquals("team sync /from 2025-01-01 /to 2025-01-02", pc.remainder());
+        assertEquals("team sync", pc.description());
+        assertEquals("2025-01-01", pc.flag("from"));
+        assertEquals("2025-01-02", pc.flag("to"));
+        assertEquals(0, pc.flagPosition("from"));
+        assertEquals(1, pc.flagPosition("to"));
+        assertNull(pc.flag("by"));
+    }
+
+    @Test
+    void parse_matchesSubstringRulesAtTheEdges() {
+        // "/by" as the first or last word is plain text, like a missing " /by ".
+        assertEquals(0, Parser.parse("deadline /by x").flagCount("by"));
+        assertEquals(0, Parser.parse("deadline x /by").flagCount("by"));
+        // Only flags the command understands are split out.
+        ParsedCommand d = Parser.parse("deadline a /from b /by c /to d");
+        assertEquals("a /from b", d.description());
+        assertEquals("c /to d", d.flag("by"));
+        assertEquals(2, Parser.parse("deadline a /by b /by c").flagCount("by"));
+        assertEquals(0, Parser.parse("todo a /by b").flagCount());
+        assertEquals("", Parser.parse("  \t ").command());
+        assertEquals("", Parser.parse("list").remainder());
+    }
 }
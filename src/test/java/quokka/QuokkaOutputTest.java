@@ -0,0 +1,74 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuokkaOutputTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private Quokka withTodos(int n) {
+        Quokka q = new Quokka(tmpDir.resolve("tasks.txt").toString());
+        for (int i = 1; i <= n; i++) {
+            assertFalse(q.process("todo task " + i).error);
+        }
+        return q;
+    }
+
+    @Test
+    void streamedOutput_matchesReturnedText() {
+        Quokka q = withTodos(30);
+        for (String cmd : new String[] {"list", "find task 1", "list 2 7", "todo task 31", "stats"}) {
+            StringBuilder out = new StringBuilder();
+            Reply streamed = q.process(cmd, out);
+            assertFalse(streamed.error, cmd);
+            assertEquals("", streamed.message);
+            if (cmd.startsWith("todo")) {
+                assertTrue(out.toString().startsWith("Got it."), out.toString());
+                q.process("delete 31");
+                continue;
+            }
+            if (!cmd.equals("stats")) {
+                assertEquals(q.process(cmd).message + "\n", out.toString(), cmd);
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        Reply err = q.process("mark 99", out);
+        assertTrue(err.error);
+        assertEquals("", out.toString(), "errors are returned, not written");
+    }
+
+    @Test
+    void listPages_keepAbsoluteNumbers() {
+        Quokka q = withTodos(45);
+        String page3 = q.process("list 3").message;
+        assertTrue(page3.startsWith("Here are the tasks in your list (page 3 of 3):"), page3);
+        assertTrue(page3.contains("\n41.[T][ ] task 41"), page3);
+        assertEquals(6, page3.split("\n").length);
+
+        assertEquals(6, q.process("list 5 10").message.split("\n").length);
+        assertTrue(q.process("list 6 10").error);
+        assertTrue(q.process("list 0").error);
+        assertTrue(q.process("list 1 abc").error);
+    }
+
+    @Test
+    void findLimit_capsMatches() {
+        Quokka q = withTodos(45);
+        String first = q.process("find task --limit 3").message;
+        assertEquals("Here are the first 3 matching tasks in your list:\n"
+            + "1.[T][ ] task 1\n2.[T][ ] task 2\n3.[T][ ] task 3", first);
+        assertEquals(46, q.process("find task").message.split("\n").length);
+        assertEquals("Here are the matching tasks in your list:\n1.[T][ ] task 45",
+            q.process("find task 45 --limit 1").message, "exactly as many matches as the limit");
+        assertEquals(3, q.process("find 4 --limit 2").message.split("\n").length, "short keywords scan");
+        assertTrue(q.process("find --limit 2").error);
+        assertTrue(q.process("find task --limit x").error);
+    }
+}
@@ -0,0 +1,91 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuokkaServerTest {
+
+    @TempDir
+    Path tmpDir;
+
+    /** Sends one command and returns the status line followed by the reply lines. */
+    private static List<String> call(BufferedReader in, PrintWriter out, String cmd) throws Exception {
+        out.print(cmd + "\n");
+        out.flush();
+        List<String> reply = new ArrayList<>();
+        String status = in.readLine();
+        reply.add(status);
+        int n = Integer.parseInt(status.substring(status.indexOf(' ') + 1));
+        for (int i = 0; i < n; i++) {
+            reply.add(in.readLine());
+        }
+        return reply;
+    }
+
+    @Test
+    void clientsShareOneListThroughTheServer() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        QuokkaServer server = new QuokkaServer(new Quokka(data.toString()), 0);
+        server.start();
+        int clients = 8;
+        int perClient = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> done = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            done.add(pool.submit(() -> {
+                try (Socket s = new Socket("127.0.0.1", server.getPort());
+                     BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                     PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8)) {
+                    for (int i = 0; i < perClient; i++) {
+                        List<String> r = call(in, out, "todo c" + client + " t" + i);
+                        assertEquals("OK 3", r.get(0));
+                    }
+                    assertEquals("ERR 1", call(in, out, "mark 0").get(0));
+                    assertEquals("BYE 1", call(in, out, "bye").get(0));
+                    assertNull(in.readLine(), "server closes the connection after bye");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get();
+        }
+        pool.shutdown();
+
+        try (Socket s = new Socket("127.0.0.1", server.getPort());
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            List<String> list = call(in, out, "list");
+            assertEquals("OK " + (clients * perClient + 1), list.get(0));
+            assertEquals("OK 0", call(in, out, "   ").get(0));
+        }
+        server.close();
+
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(clients * perClient, loaded.size());
+    }
+
+    @Test
+    void connectionThreadFactory_alwaysProducesThreads() throws Exception {
+        Thread t = QuokkaServer.connectionThreadFactory().newThread(() -> { });
+        assertTrue(t.getName().startsWith("quokka-client-"));
+        t.start();
+        t.join();
+    }
+}
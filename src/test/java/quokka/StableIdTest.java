@@ -0,0 +1,127 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StableIdTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void ids_surviveDeletesAndRestarts() throws Exception {
+        for (StorageOptions options : List.of(StorageOptions.defaults(),
+                StorageOptions.defaults().withJournal(true),
+                StorageOptions.defaults().withBinarySnapshot(true).withColumnarStore(true))) {
+            Path file = Files.createTempDirectory(tmpDir, "ids").resolve("tasks.txt");
+            Quokka q = new Quokka(file.toString(), options);
+            q.process("todo a");
+            q.process("todo b");
+            q.process("todo c");
+            assertFalse(q.process("delete #2").error);
+            Reply missing = q.process("mark #2");
+            assertTrue(missing.error);
+            assertEquals("There is no task #2.", missing.message);
+            q.close();
+
+            Quokka reopened = new Quokka(file.toString(), options);
+            assertEquals("Here are the tasks in your list:\n1.[T][ ] a (#1)\n2.[T][ ] c (#3)",
+                reopened.process("list --ids").message);
+            assertFalse(reopened.process("mark #3").error);
+            assertTrue(reopened.snapshotTasks().get(1).isDone());
+            reopened.process("todo d");
+            assertEquals(4, reopened.snapshotTasks().get(2).getId());
+            assertFalse(reopened.process("unmark 2").error, "positions still work");
+            assertTrue(reopened.process("delete #x").error);
+            reopened.close();
+        }
+    }
+
+    @Test
+    void massDeletes_keepPositionsAndIdsConsistent() {
+        for (TaskList tl : List.of(new TaskList(), TaskList.columnar())) {
+            for (int i = 0; i < 20_000; i++) {
+                tl.add(new Todo("task " + i));
+            }
+            // Delete every task with an even id, in a scattered order.
+            List<Integer> even = new ArrayList<>();
+            for (int id = 2; id <= 20_000; id += 2) {
+                even.add(id);
+            }
+            Collections.shuffle(even, new Random(9));
+            for (int id : even) {
+                tl.removeAt(tl.indexOfId(id));
+            }
+            assertEquals(10_000, tl.size());
+            TaskStore store = (TaskStore) tl.view();
+            assertTrue(store.slotCount() < 2 * tl.size() + SlotStore.LEAF, "tombstones are compacted");
+            for (int i = 0; i < tl.size(); i++) {
+                int id = 2 * i + 1;
+                assertEquals(id, tl.get(i).getId());
+                assertEquals(i, tl.indexOfId(id));
+            }
+            assertEquals(-1, tl.indexOfId(2));
+            List<Task> found = tl.find("task 9998");
+            assertEquals(1, found.size());
+            assertEquals(9_999, found.get(0).getId());
+        }
+    }
+
+    @Test
+    void savedIds_surviveHandEditsAndReordering() throws Exception {
+        for (StorageOptions options : List.of(StorageOptions.defaults(),
+                StorageOptions.defaults().withColumnarStore(true),
+                StorageOptions.defaults().withPagedStore(true))) {
+            Path file = Files.createTempDirectory(tmpDir, "ids").resolve("tasks.txt");
+            Files.write(file, List.of("#1 | T | 0 | alpha", "T | 0 | added by hand", "#2 | T | 0 | beta",
+                "#5 | T | 0 | five", "#3 | T | 0 | three", "#3 | T | 0 | copied line"));
+            Quokka q = new Quokka(file.toString(), options);
+            assertEquals("Here are the tasks in your list:\n1.[T][ ] alpha (#1)\n2.[T][ ] added by hand (#6)"
+                + "\n3.[T][ ] beta (#2)\n4.[T][ ] five (#5)\n5.[T][ ] three (#3)\n6.[T][ ] copied line (#7)",
+                q.process("list --ids").message);
+            assertFalse(q.process("mark #3").error);
+            assertFalse(q.process("delete #2").error);
+            q.close();
+
+            Quokka reopened = new Quokka(file.toString(), options);
+            assertEquals("Here are the tasks in your list:\n1.[T][ ] alpha (#1)\n2.[T][ ] added by hand (#6)"
+                + "\n3.[T][ ] five (#5)\n4.[T][X] three (#3)\n5.[T][ ] copied line (#7)",
+                reopened.process("list --ids").message);
+            reopened.process("todo new");
+            assertEquals(8, reopened.snapshotTasks().get(5).getId());
+            reopened.close();
+        }
+    }
+
+    @Test
+    void idSlotMap_matchesHashMap() {
+        IdSlotMap map = new IdSlotMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(3);
+        for (int step = 0; step < 100_000; step++) {
+            int id = 1 + r.nextInt(5_000);
+            if (r.nextInt(3) == 0) {
+                map.remove(id);
+                expected.remove(id);
+            } else {
+                map.put(id, step);
+                expected.put(id, step);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int id = 1; id <= 5_000; id++) {
+            assertEquals(expected.getOrDefault(id, -1), map.get(id));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageJournalTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void load_replaysJournalOnTopOfSnapshot() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Todo("buy milk"));
+        Storage.save(data, tasks);
+
+        Todo added = new Todo("walk dog");
+        tasks.add(added);
+        Storage.appendJournal(data, Storage.addRecord(added), tasks);
+        tasks.get(0).markAsDone();
+        Storage.appendJournal(data, Storage.indexRecord(Storage.REC_MARK, 0), tasks);
+        tasks.remove(1);
+        Storage.appendJournal(data, Storage.indexRecord(Storage.REC_DELETE, 1), tasks);
+
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+
+        assertEquals(2, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("walk dog", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void save_discardsFoldedJournal() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        Storage.appendJournal(data, Storage.addRecord(tasks.get(0)), tasks);
+
+        Storage.save(data, tasks);
+
+        assertFalse(Files.exists(Storage.journalPath(data)));
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    void compaction_foldsJournalIntoSnapshot() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        Storage.save(data, tasks);
+        for (int i = 0; i < 5; i++) {
+            Todo t = new Todo("task " + i);
+            tasks.add(t);
+            Storage.appendJournal(data, Storage.addRecord(t), tasks);
+        }
+
+        Storage.compactInBackground(data, tasks, StorageOptions.defaults());
+        Storage.awaitCompaction();
+
+        assertFalse(Files.exists(Storage.rotatedJournalPath(data)));
+        assertEquals(5, Files.readAllLines(data, StandardCharsets.UTF_8).size());
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+        assertEquals(5, loaded.size());
+    }
+
+    @Test
+    void load_replaysRotatedJournalWhenCompactionNeverFinished() throws Exception {
+        Path data = tmpDir.resolve("tasks.txt");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        Storage.save(data, tasks);
+
+        long size = Files.size(data);
+        long mtime = Files.getLastModifiedTime(data).toMillis();
+        Files.writeString(Storage.rotatedJournalPath(data),
+            "ADD | T | 0 | buy milk\nBASE | " + size + " | " + mtime + "\n", StandardCharsets.UTF_8);
+        Files.writeString(Storage.journalPath(data), "MARK | 1\n", StandardCharsets.UTF_8);
+
+        List<Task> loaded = new ArrayList<>();
+        Storage.load(data, loaded);
+
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+        assertFalse(Files.exists(Storage.rotatedJournalPath(data)));
+    }
+}
@@ -3,6 +3,8 @@ package quokka;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
@@ -52,4 +54,89 @@ class StorageTest {
         assertEquals(1, loaded.size());
         assertTrue(loaded.get(0) instanceof Todo);
     }
+
+    @Test
+    void load_stripsBomHandlesCrlfAndReportsStats() throws Exception {
+        Path data = tmpDir.resolve("crlf.txt");
+        String content = "\uFEFFT | 0 | read book\r\n"
+            + "D|1|submit report|2025-09-10\r\n"
+            + "\r\n"
+            + "E | 0 | camp | 2025-09-10 | 2025-09-12";
+        Files.writeString(data, content, StandardCharsets.UTF_8);
+
+        List<Task> loaded = new ArrayList<>();
+        LoadStats stats = Storage.load(data, loaded);
+
+        assertEquals(3, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals("camp", loaded.get(2).getDescription());
+        assertEquals(3, stats.tasks);
+        assertEquals(0, stats.skipped);
+        assertEquals(Files.size(data), stats.bytes);
+    }
+
+    @Test
+    void load_parallelChunksMatchSerialOrderAndLineNumbers() throws Exception {
+        Path data = tmpDir.resolve("big.txt");
+        StringBuilder sb = new StringBuilder("\uFEFF");
+        for (int i = 1; i <= 20_000; i++) {
+            if (i % 997 == 0) {
+                sb.append("corrupt ").append(i).append('\n');
+            } else if (i % 501 == 0) {
+                sb.append("\r\n");
+            } else if (i % 3 == 0) {
+                sb.append("#").append(i).append(" | D | 1 | due ").append(i).append(" | 2025-09-10\r\n");
+            } else {
+                sb.append("#").append(i).append(" | T | 0 | todo ").append(i).append('\n');
+            }
+        }
+        sb.append("T | 0 | no newline at the end");
+        Files.writeString(data, sb, StandardCharsets.UTF_8);
+
+        List<Task> serial = new ArrayList<>();
+        String serialWarnings = captureErr(() -> Storage.load(data, serial, Long.MAX_VALUE));
+        List<Task> parallel = new ArrayList<>();
+        LoadStats[] stats = new LoadStats[1];
+        String parallelWarnings = captureErr(() -> stats[0] = Storage.load(data, parallel, 0));
+
+        assertEquals(serial.size(), parallel.size());
+        for (int i = 0; i < serial.size(); i++) {
+            assertEquals(serial.get(i).getId(), parallel.get(i).getId());
+            assertEquals(serial.get(i).toString(), parallel.get(i).toString());
+        }
+        assertEquals("no newline at the end", parallel.get(parallel.size() - 1).getDescription());
+        assertEquals(20, stats[0].skipped);
+        assertEquals(Files.size(data), stats[0].bytes);
+        assertTrue(parallelWarnings.startsWith("Warning: skipped corrupted line 997: \"corrupt 997\""));
+        assertEquals(serialWarnings, parallelWarnings);
+    }
+
+    /** Runs {@code load} and returns what it printed to stderr. */
+    private static String captureErr(LoadCall load) throws DukeException {
+        PrintStream err = System.err;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(buf, true, StandardCharsets.UTF_8));
+        try {
+            load.run();
+        } finally {
+            System.setErr(err);
+        }
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    private interface LoadCall {
+        void run() throws DukeException;
+    }
+
+    @Test
+    void splitFields_matchesRegexSplit() {
+        String[] samples = {
+            "T | 0 | read book", "D|1|x|2025-09-10", "T | 0 |", "| T | 0", "E | 0 | a b | 2025-01-01 |  2025-01-02  "
+        };
+        for (String s : samples) {
+            // load() trims each line before splitting it
+            assertArrayEquals(s.trim().split("\\s*\\|\\s*"), Storage.splitFields(s.trim()), s);
+        }
+    }
 }
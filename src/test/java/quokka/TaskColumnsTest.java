@@ -0,0 +1,124 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskColumnsTest {
+
+    private static Task randomTask(Random r, int i) {
+        String desc = "task " + (r.nextInt(50) == 0 ? "é ✓ " + "x".repeat(200) : String.valueOf(i % 300));
+        boolean done = r.nextBoolean();
+        LocalDate day = LocalDate.of(2025, 1, 1).plusDays(r.nextInt(400));
+        switch (r.nextInt(3)) {
+            case 0:
+                return new Todo(desc, done);
+            case 1:
+                return new Deadline(desc, day, done);
+            default:
+                return new Event(desc, day, day.plusDays(1 + r.nextInt(3)), done);
+        }
+    }
+
+    private static List<String> render(List<Task> tasks) {
+        List<String> out = new ArrayList<>();
+        for (Task t : tasks) {
+            out.add(t.getId() + " " + t.toDataString());
+        }
+        return out;
+    }
+
+    @Test
+    void columns_matchTaskVectorAndKeepOldVersions() {
+        Random r = new Random(11);
+        TaskStore objects = TaskVector.empty();
+        TaskStore columns = TaskColumns.empty();
+        List<TaskStore> versions = new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            int op = r.nextInt(10);
+            if (op < 6 || objects.isEmpty()) {
+                Task t = randomTask(r, step);
+                t.setId(step + 1);
+                objects = objects.append(t);
+                columns = columns.append(t);
+            } else if (op < 8) {
+                int i = r.nextInt(objects.size());
+                objects = objects.removeAt(i);
+                columns = columns.removeAt(i);
+            } else {
+                int i = r.nextInt(objects.size());
+                Task t = objects.get(i).withDone(r.nextBoolean());
+                t.setId(objects.idAt(i));
+                objects = objects.replace(i, t);
+                columns = columns.replace(i, t);
+            }
+            assertEquals(objects.size(), columns.size());
+            if (!objects.isEmpty()) {
+                assertEquals(objects.idAt(objects.size() - 1), columns.idAt(columns.size() - 1));
+            }
+            if (step % 250 == 0) {
+                versions.add(columns);
+                expected.add(render(objects));
+            }
+        }
+        assertEquals(render(objects), render(columns));
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expected.get(i), render(versions.get(i)), "version " + i + " changed");
+        }
+    }
+
+    @Test
+    void arena_deduplicatesDescriptions() {
+        DescriptionArena arena = new DescriptionArena();
+        String longText = "ü".repeat(100);
+        int a = arena.add("read book");
+        int b = arena.add(longText);
+        for (int i = 0; i < 1_000; i++) {
+            arena.add("filler " + i);
+        }
+        assertEquals(a, arena.add("read book"));
+        assertEquals(b, arena.add(longText));
+        assertNotEquals(a, arena.add("read book "));
+        assertEquals("read book", arena.get(a));
+        assertEquals(longText, arena.get(b));
+    }
+
+    @Test
+    void columnarTaskList_answersQueriesLikeTheDefaultList() {
+        TaskList plain = new TaskList();
+        TaskList columnar = TaskList.columnar();
+        Random r = new Random(5);
+        for (int i = 0; i < 2_000; i++) {
+            Task t = randomTask(r, i);
+            if (!plain.containsDuplicate(t)) {
+                plain.add(t);
+                columnar.add(t.withDone(t.isDone()));
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            int idx = r.nextInt(plain.size());
+            if (r.nextBoolean()) {
+                plain.removeAt(idx);
+                columnar.removeAt(idx);
+            } else {
+                plain.setDone(idx, true);
+                columnar.setDone(idx, true);
+            }
+        }
+        assertEquals(render(plain.view()), render(columnar.view()));
+        assertEquals(render(plain.find("task 12")), render(columnar.find("task 12")));
+        assertEquals(render(plain.find("x")), render(columnar.find("x")));
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        assertEquals(render(plain.dueOn(day)), render(columnar.dueOn(day)));
+        assertEquals(render(plain.between(day, day.plusDays(30))), render(columnar.between(day, day.plusDays(30))));
+        Task existing = columnar.get(columnar.size() / 2);
+        assertTrue(columnar.containsDuplicate(existing.withDone(false)));
+        assertTrue(columnar.estimatedBytes() < plain.estimatedBytes());
+    }
+}
@@ -0,0 +1,82 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskListDateIndexTest {
+
+    private static TaskList sample() {
+        TaskList tl = new TaskList();
+        tl.add(new Todo("read book"),
+            new Deadline("report", "2025-09-10"),
+            new Event("camp", "2025-09-08", "2025-09-12"),
+            new Deadline("essay", "2025-09-01"),
+            new Deadline("taxes", "2025-08-01"));
+        tl.get(4).markAsDone();
+        return tl;
+    }
+
+    private static String descriptions(List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        for (Task t : tasks) {
+            sb.append(t.getDescription()).append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void dueOn_matchesDeadlinesAndEventEndpoints() {
+        TaskList tl = sample();
+        assertEquals("report;", descriptions(tl.dueOn(LocalDate.of(2025, 9, 10))));
+        assertEquals("camp;", descriptions(tl.dueOn(LocalDate.of(2025, 9, 12))));
+        assertTrue(tl.dueOn(LocalDate.of(2025, 9, 11)).isEmpty());
+    }
+
+    @Test
+    void between_isInclusiveChronologicalAndDeduplicated() {
+        TaskList tl = sample();
+        assertEquals("essay;camp;report;",
+            descriptions(tl.between(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30))));
+        assertTrue(tl.between(LocalDate.of(2025, 9, 30), LocalDate.of(2025, 9, 1)).isEmpty());
+    }
+
+    @Test
+    void overdue_skipsDoneTasksAndEvents() {
+        TaskList tl = sample();
+        assertEquals("essay;", descriptions(tl.overdue(LocalDate.of(2025, 9, 9))));
+        tl.removeAt(3);
+        assertTrue(tl.overdue(LocalDate.of(2025, 9, 9)).isEmpty());
+    }
+
+    @Test
+    void overdue_followsMarkAndUnmark() {
+        TaskList tl = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            tl.add(new Deadline("old " + i, LocalDate.of(2024, 1, 1).plusDays(i), false));
+        }
+        BitSet all = new BitSet();
+        all.set(0, 200);
+        tl.setDone(all, true);
+        LocalDate today = LocalDate.of(2025, 9, 9);
+        assertTrue(tl.overdue(today).isEmpty());
+
+        tl.setDone(150, false);
+        tl.setDone(3, false);
+        assertEquals("old 3;old 150;", descriptions(tl.overdue(today)));
+        BitSet some = new BitSet();
+        some.set(3);
+        some.set(100);
+        tl.setDone(some, false);
+        tl.setDone(150, true);
+        assertEquals("old 3;old 100;", descriptions(tl.overdue(today)));
+        tl.removeAt(3);
+        assertEquals("old 100;", descriptions(tl.overdue(today)));
+        assertEquals("old 100;", descriptions(tl.overdue(LocalDate.of(2024, 4, 11))));
+        assertTrue(tl.overdue(LocalDate.of(2024, 4, 10)).isEmpty());
+    }
+}
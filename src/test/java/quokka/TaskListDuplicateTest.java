@@ -42,4 +42,17 @@ class TaskListDuplicateTest {
         assertTrue(tl.containsDuplicate(b));
         assertFalse(tl.containsDuplicate(c));
     }
+
+    @Test
+    void containsDuplicate_tracksRemovalsAndPreloadedTasks() {
+        ArrayList<Task> existing = new ArrayList<>();
+        existing.add(new Todo("read book"));
+        existing.add(new Todo("READ BOOK "));
+        TaskList tl = new TaskList(existing);
+
+        tl.removeAt(0);
+        assertTrue(tl.containsDuplicate(new Todo("read book")), "one copy is still in the list");
+        tl.removeAt(0);
+        assertFalse(tl.containsDuplicate(new Todo("read book")));
+    }
 }
@@ -0,0 +1,49 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskListFindTest {
+
+    private static TaskList sample() {
+        TaskList tl = new TaskList();
+        tl.add(new Todo("Read Book"), new Todo("buy milk"), new Deadline("return book", "2025-09-10"),
+            new Event("book fair", "2025-09-10", "2025-09-12"), new Todo("bookkeeping"));
+        return tl;
+    }
+
+    private static String descriptions(List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        for (Task t : tasks) {
+            sb.append(t.getDescription()).append(';');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void find_isCaseInsensitiveSubstringInListOrder() {
+        TaskList tl = sample();
+        assertEquals("Read Book;return book;book fair;bookkeeping;", descriptions(tl.find("BOOK")));
+        assertEquals("Read Book;", descriptions(tl.find("d bo")));
+        assertEquals("bookkeeping;", descriptions(tl.find("okkee")));
+        assertTrue(tl.find("no such thing").isEmpty());
+    }
+
+    @Test
+    void find_shortKeywordsFallBackToScan() {
+        TaskList tl = sample();
+        assertEquals("buy milk;", descriptions(tl.find("mi")));
+        assertEquals(5, tl.find("").size());
+    }
+
+    @Test
+    void find_reflectsRemovalsAndLaterAdds() {
+        TaskList tl = sample();
+        tl.removeAt(2);
+        tl.add(new Todo("a new book"));
+        assertEquals("Read Book;book fair;bookkeeping;a new book;", descriptions(tl.find("book")));
+    }
+}
@@ -0,0 +1,105 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskListSnapshotTest {
+
+    @Test
+    void vector_matchesArrayListAndOldVersionsNeverChange() {
+        Random r = new Random(7);
+        TaskVector v = TaskVector.empty();
+        List<Task> expected = new ArrayList<>();
+        List<TaskVector> versions = new ArrayList<>();
+        List<List<Task>> expectedVersions = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int op = r.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                Task t = new Todo("t" + step);
+                v = v.append(t);
+                expected.add(t);
+            } else if (op < 8) {
+                int i = r.nextInt(expected.size());
+                v = v.removeAt(i);
+                expected.remove(i);
+            } else {
+                int i = r.nextInt(expected.size());
+                Task t = new Todo("r" + step);
+                v = v.replace(i, t);
+                expected.set(i, t);
+            }
+            if (step % 500 == 0) {
+                versions.add(v);
+                expectedVersions.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(expected, v);
+        assertEquals(expected, new ArrayList<>(v), "iterator walks the leaves in order");
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i), "version " + i + " changed");
+        }
+        TaskVector last = v;
+        assertThrows(UnsupportedOperationException.class, () -> last.add(new Todo("x")));
+        assertThrows(IndexOutOfBoundsException.class, () -> last.get(last.size()));
+    }
+
+    @Test
+    void view_isASnapshot() {
+        TaskList tl = new TaskList();
+        tl.add(new Todo("a"), new Todo("b"));
+        List<Task> before = tl.view();
+        tl.add(new Todo("c"));
+        Task marked = tl.setDone(0, true);
+        tl.removeAt(1);
+
+        assertEquals(2, before.size());
+        assertFalse(before.get(0).isDone(), "marking replaces the task instead of changing the snapshot");
+        assertTrue(marked.isDone());
+        assertSame(marked, tl.get(0));
+        assertEquals(before.get(0).getId(), marked.getId());
+        assertEquals(List.of(marked, tl.get(1)), tl.view());
+        assertEquals("c", tl.get(1).getDescription());
+        assertEquals(List.of(marked), tl.find("a"), "indexes resolve to the replacement");
+    }
+
+    @Test
+    void readers_seeConsistentVersionsWithoutLocking() throws Exception {
+        TaskList tl = new TaskList();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                List<Task> snap = tl.view();
+                int n = 0;
+                for (Task t : snap) {
+                    if (t == null) {
+                        failure.set("null task in snapshot");
+                    }
+                    n++;
+                }
+                if (n != snap.size()) {
+                    failure.set("iterated " + n + " of " + snap.size());
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50_000; i++) {
+            tl.add(new Todo("task " + i));
+            if (i % 3 == 0) {
+                tl.removeAt(i % tl.size());
+            } else if (i % 3 == 1) {
+                tl.setDone(i % tl.size(), true);
+            }
+        }
+        stop.set(true);
+        reader.join();
+        assertNull(failure.get());
+    }
+}
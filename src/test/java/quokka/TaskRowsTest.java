@@ -0,0 +1,49 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRowsTest {
+
+    private static List<Task> sample() {
+        return List.of(
+            new Todo("a", true),
+            new Event("b", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2), false),
+            new Deadline("c", LocalDate.of(1960, 1, 1), true),
+            new Todo("d", false),
+            new Deadline("e", LocalDate.of(2025, 1, 1), false));
+    }
+
+    private static String descriptions(TaskRows rows) {
+        StringBuilder sb = new StringBuilder();
+        for (Task t : rows) {
+            sb.append(t.getDescription());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void listOrder_isTheArrayItself() {
+        List<Task> tasks = sample();
+        TaskRows rows = TaskRows.of(tasks, TaskRows.Order.LIST);
+        assertEquals("abcde", descriptions(rows));
+        assertSame(tasks.get(2), rows.get(2));
+        assertEquals(3, rows.position(3));
+    }
+
+    @Test
+    void sortedOrders_areStableAndMapBackToListPositions() {
+        List<Task> tasks = sample();
+        assertEquals("adceb", descriptions(TaskRows.of(tasks, TaskRows.Order.TYPE)));
+        assertEquals("bdeac", descriptions(TaskRows.of(tasks, TaskRows.Order.DONE)));
+
+        TaskRows byDate = TaskRows.of(tasks, TaskRows.Order.DATE);
+        assertEquals("cebad", descriptions(byDate));
+        assertEquals(2, byDate.position(0));
+        assertSame(tasks.get(4), byDate.get(1));
+    }
+}
@@ -0,0 +1,46 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void oldestMessagesSpillToDiskPastTheCap() throws Exception {
+        Path log = tmpDir.resolve("logs").resolve("transcript.log");
+        Transcript t = new Transcript(100, log);
+        for (int i = 0; i < 1000; i++) {
+            t.add(ChatMessage.user("cmd " + i));
+        }
+        List<ChatMessage> kept = t.messages();
+        assertTrue(kept.size() >= 100 && kept.size() < 110, "kept " + kept.size());
+        assertEquals("cmd 999", kept.get(kept.size() - 1).text);
+
+        List<String> spilled = Files.readAllLines(log);
+        assertEquals(1000 - kept.size(), spilled.size());
+        assertEquals("> cmd 0", spilled.get(0));
+        assertEquals("> cmd " + (spilled.size() - 1), spilled.get(spilled.size() - 1));
+    }
+
+    @Test
+    void clearSpillsEverything() throws Exception {
+        Path log = tmpDir.resolve("transcript.log");
+        Transcript t = new Transcript(100, log);
+        t.add(ChatMessage.user("list"));
+        t.add(ChatMessage.bot("line 1\nline 2", false));
+        t.add(ChatMessage.bot("OOPS!!! nope", false));
+        t.clear();
+
+        assertTrue(t.messages().isEmpty());
+        assertEquals(List.of("> list", "  line 1", "  line 2", "! OOPS!!! nope"), Files.readAllLines(log));
+    }
+}
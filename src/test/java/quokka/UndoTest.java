@@ -0,0 +1,99 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void undoAndRedo_revertCommandsAndArePersisted() throws Exception {
+        for (StorageOptions options : List.of(StorageOptions.defaults(),
+                StorageOptions.defaults().withJournal(true),
+                StorageOptions.defaults().withColumnarStore(true).withJournal(true))) {
+            Path file = Files.createTempDirectory(tmpDir, "undo").resolve("tasks.txt");
+            Quokka q = new Quokka(file.toString(), options);
+            assertEquals("OOPS!!! There is nothing to undo.", q.process("undo").message);
+            for (String t : List.of("a", "b", "c", "d", "e")) {
+                q.process("todo " + t);
+            }
+            q.process("mark 1-3");
+            q.process("delete 2");
+            q.process("delete 3,4");
+            assertEquals("Undone: delete 3,4\nNow you have 4 tasks in the list.", q.process("undo").message);
+            assertEquals("Undone: delete 2\nNow you have 5 tasks in the list.", q.process("undo").message);
+            assertEquals("Undone: mark 1-3\nNow you have 5 tasks in the list.", q.process("undo").message);
+            assertEquals("Redone: mark 1-3\nNow you have 5 tasks in the list.", q.process("redo").message);
+            q.process("unmark 3");
+            assertTrue(q.process("redo").error, "a new change drops what was undone");
+            q.process("delete 1");
+            q.process("undo");
+            q.close();
+
+            Quokka reopened = new Quokka(file.toString(), options);
+            assertEquals("Here are the tasks in your list:\n1.[T][X] a (#1)\n2.[T][X] b (#2)\n3.[T][ ] c (#3)"
+                    + "\n4.[T][ ] d (#4)\n5.[T][ ] e (#5)", reopened.process("list --ids").message);
+            assertTrue(reopened.process("undo").error, "history starts empty after a restart");
+            reopened.process("todo f");
+            assertEquals("Undone: todo f\nNow you have 5 tasks in the list.", reopened.process("undo").message);
+            assertFalse(reopened.process("redo").error);
+            assertEquals(6, reopened.snapshotTasks().get(5).getId(), "a redone add keeps its id");
+            reopened.close();
+        }
+    }
+
+    @Test
+    void bulkDeleteAndUndo_restorePositionsIdsAndIndexes() {
+        for (TaskList tl : List.of(new TaskList(), TaskList.columnar())) {
+            for (int i = 0; i < 5_000; i++) {
+                tl.add(new Todo("chore " + i));
+            }
+            BitSet sevenths = new BitSet();
+            for (int i = 0; i < 5_000; i += 7) {
+                sevenths.set(i);
+            }
+            History history = new History(10);
+            History.Edit delete = new History.Remove("delete", sevenths, tl.removeAt(sevenths));
+            history.record(delete);
+            assertEquals(5_000 - 715, tl.size());
+            List<String> records = history.undo().apply(tl);
+            assertEquals(715, records.size());
+            assertEquals("INSERT | 7 | #8 | T | 0 | chore 7", records.get(1));
+            for (int i = 0; i < 5_000; i++) {
+                assertEquals(i + 1, tl.get(i).getId());
+                assertEquals(i, tl.indexOfId(i + 1));
+            }
+            List<Task> found = tl.find("chore 4998");
+            assertEquals(1, found.size());
+            assertEquals(4_999, found.get(0).getId());
+            tl.add(new Todo("new"));
+            assertEquals(5_001, tl.get(5_000).getId());
+        }
+    }
+
+    @Test
+    void history_keepsAtMostDepthEdits() {
+        History history = new History(2);
+        for (int i = 0; i < 3; i++) {
+            history.record(new History.Mark("mark " + i, new int[0], true));
+        }
+        assertEquals(2, history.undoable());
+        assertEquals("mark 2", history.undo().command);
+        assertEquals("mark 1", history.undo().command);
+        assertNull(history.undo());
+        assertEquals("mark 1", history.redo().command);
+
+        History off = new History(0);
+        off.record(new History.Mark("mark 1", new int[0], true));
+        assertNull(off.undo());
+    }
+}
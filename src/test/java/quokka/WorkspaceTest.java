@@ -0,0 +1,65 @@
+package quokka;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void use_switchesBetweenSeparateFiles() {
+        String file = tmpDir.resolve("tasks.txt").toString();
+        Quokka q = new Quokka(file);
+        assertFalse(q.process("todo home chore").error);
+        Reply r = q.process("use Work");
+        assertFalse(r.error);
+        assertEquals("Now using workspace 'work' (0 tasks).", r.message);
+        assertFalse(q.process("todo write report").error);
+        assertEquals("work", q.getWorkspace());
+        assertEquals(1, q.snapshotTasks().size());
+        assertTrue(q.process("use a/b").error);
+        assertTrue(q.process("use default").message.contains("(1 tasks)"));
+        assertEquals("home chore", q.snapshotTasks().get(0).getDescription());
+        q.close();
+
+        assertTrue(Files.exists(tmpDir.resolve("tasks-work.txt")));
+        Quokka reopened = new Quokka(file);
+        assertEquals(1, reopened.snapshotTasks().size());
+        reopened.process("use work");
+        assertEquals("write report", reopened.snapshotTasks().get(0).getDescription());
+        reopened.close();
+    }
+
+    @Test
+    void cache_evictsLeastRecentlyUsedAndReloadsLazily() {
+        // Room for about one workspace of 50 tasks.
+        Quokka q = new Quokka(tmpDir.resolve("tasks.txt").toString(), StorageOptions.defaults(), 30_000);
+        for (String ws : new String[] {"a", "b", "c"}) {
+            q.process("use " + ws);
+            for (int i = 0; i < 50; i++) {
+                assertFalse(q.process("todo " + ws + " task " + i).error);
+            }
+        }
+        WorkspaceCache.Stats s = q.getWorkspaceStats();
+        assertEquals(4, s.misses, "default, a, b and c were each loaded once");
+        assertEquals(0, s.hits);
+        assertTrue(s.evictions >= 2, s.toString());
+        assertTrue(s.loaded <= 2, s.toString());
+
+        q.process("use a");
+        assertEquals(5, q.getWorkspaceStats().misses, "evicted workspace is reloaded from disk");
+        assertEquals(50, q.snapshotTasks().size());
+        assertEquals("a task 49", q.snapshotTasks().get(49).getDescription());
+        q.process("use a");
+        assertEquals(1, q.getWorkspaceStats().hits);
+        assertTrue(q.process("stats").message.contains("5 misses"));
+        q.close();
+    }
+}